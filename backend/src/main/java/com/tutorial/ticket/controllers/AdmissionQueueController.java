@@ -0,0 +1,50 @@
+package com.tutorial.ticket.controllers;
+
+import com.tutorial.ticket.domain.dtos.AdmissionQueueStatusResponseDto;
+import com.tutorial.ticket.mappers.AdmissionQueueMapper;
+import com.tutorial.ticket.services.AdmissionQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import static com.tutorial.ticket.util.JwtUtil.parseUserId;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/events/{eventId}/queue")
+public class AdmissionQueueController {
+
+    private final AdmissionQueueService admissionQueueService;
+    private final AdmissionQueueMapper admissionQueueMapper;
+
+    @PostMapping
+    public ResponseEntity<AdmissionQueueStatusResponseDto> joinQueue(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID eventId
+    ) {
+        return ResponseEntity.ok(admissionQueueMapper.toAdmissionQueueStatusResponseDto(
+                admissionQueueService.join(eventId, parseUserId(jwt))
+        ));
+    }
+
+    // Polled by clients while they wait; answered from memory only
+    @GetMapping
+    public ResponseEntity<AdmissionQueueStatusResponseDto> getQueueStatus(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID eventId,
+            @RequestParam String token
+    ) {
+        return ResponseEntity.ok(admissionQueueMapper.toAdmissionQueueStatusResponseDto(
+                admissionQueueService.getStatus(eventId, parseUserId(jwt), token)
+        ));
+    }
+}
@@ -1,30 +1,58 @@
 package com.tutorial.ticket.controllers;
 
 import com.tutorial.ticket.domain.CreateEventRequest;
+import com.tutorial.ticket.domain.QrCodeImageFormat;
 import com.tutorial.ticket.domain.dtos.CreateEventRequestDto;
 import com.tutorial.ticket.domain.dtos.CreateEventResponseDto;
 import com.tutorial.ticket.domain.entities.Event;
 import com.tutorial.ticket.mappers.EventMapper;
+import com.tutorial.ticket.services.AttendanceStatsService;
 import com.tutorial.ticket.services.EventService;
+import com.tutorial.ticket.services.QrCodeService;
+import com.tutorial.ticket.services.ScannerManifestService;
+import com.tutorial.ticket.services.ValidationManifestService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/events")
 @RequiredArgsConstructor
+@Validated
 public class EventController {
 
     private final EventMapper eventMapper;
     private final EventService eventService;
+    private final QrCodeService qrCodeService;
+    private final ValidationManifestService validationManifestService;
+    private final ScannerManifestService scannerManifestService;
+    private final AttendanceStatsService attendanceStatsService;
+
+    // Only the export runs long enough to need more than the default async timeout
+    @Value("${ticket.qr.export.timeout-ms:600000}")
+    private long exportTimeoutMillis;
 
     // ✅ CREATE EVENT (POST /api/v1/events)
     @PostMapping
@@ -66,4 +94,86 @@ public class EventController {
         Event event = eventService.getEvent(userId, id);
         return ResponseEntity.ok(event);
     }
+
+    // ✅ EXPORT QR CODES AS ZIP (GET /api/v1/events/{id}/qr-codes/export?size=300&format=png)
+    @GetMapping("/{id}/qr-codes/export")
+    public WebAsyncTask<Void> exportQrCodes(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "300") @Min(64) @Max(1024) int size,
+            @RequestParam(defaultValue = "png") @Pattern(regexp = "(?i)png|svg") String format,
+            HttpServletResponse response
+    ) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        // Only the organizer may export; throws otherwise
+        eventService.getEvent(userId, id);
+
+        QrCodeImageFormat imageFormat = QrCodeImageFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("qr-codes-" + id + ".zip")
+                .build()
+                .toString());
+
+        // Streams straight to the response on an async thread with its own timeout
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            qrCodeService.exportEventQrCodes(id, size, imageFormat, response.getOutputStream());
+            return null;
+        });
+    }
+
+    // ✅ LOAD VALIDATION MANIFEST BEFORE DOORS OPEN (POST /api/v1/events/{id}/validation-manifest)
+    @PostMapping("/{id}/validation-manifest")
+    public ResponseEntity<Void> loadValidationManifest(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID id
+    ) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        // Only the organizer may load or unload; throws otherwise
+        eventService.getEvent(userId, id);
+        validationManifestService.loadManifest(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // ✅ UNLOAD VALIDATION MANIFEST (DELETE /api/v1/events/{id}/validation-manifest)
+    @DeleteMapping("/{id}/validation-manifest")
+    public ResponseEntity<Void> unloadValidationManifest(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID id
+    ) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        eventService.getEvent(userId, id);
+        validationManifestService.unloadManifest(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // ✅ OFFLINE SCANNER MANIFEST (GET /api/v1/events/{id}/scanner-manifest?since=<version>)
+    @GetMapping("/{id}/scanner-manifest")
+    public ResponseEntity<StreamingResponseBody> getScannerManifest(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID id,
+            @RequestParam(required = false) Long since
+    ) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        eventService.checkOrganizerOrStaff(userId, id);
+
+        StreamingResponseBody body = outputStream ->
+                scannerManifestService.writeManifest(id, since, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    // ✅ LIVE ATTENDANCE (GET /api/v1/events/{id}/attendance/stream)
+    @GetMapping(value = "/{id}/attendance/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAttendance(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID id
+    ) {
+        UUID userId = UUID.fromString(jwt.getSubject());
+        eventService.checkOrganizerOrStaff(userId, id);
+        return attendanceStatsService.subscribe(id);
+    }
 }
@@ -2,6 +2,14 @@
 package com.tutorial.ticket.controllers;
 
 import com.tutorial.ticket.domain.dtos.ErrorDto;
+import com.tutorial.ticket.exceptions.DuplicateIdempotencyKeyException;
+import com.tutorial.ticket.exceptions.IdempotencyKeyReusedException;
+import com.tutorial.ticket.exceptions.InvalidIdempotencyKeyException;
+import com.tutorial.ticket.exceptions.InvalidQrCodePayloadException;
+import com.tutorial.ticket.exceptions.QueueAdmissionRequiredException;
+import com.tutorial.ticket.exceptions.TicketHoldExpiredException;
+import com.tutorial.ticket.exceptions.TicketHoldNotFoundException;
+import com.tutorial.ticket.exceptions.TicketsSoldOutException;
 import com.tutorial.ticket.exceptions.UserNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +36,73 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(TicketHoldNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleTicketHoldNotFoundException(TicketHoldNotFoundException ex) {
+        log.error("Caught TicketHoldNotFoundException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError("Ticket hold not found");
+        return new ResponseEntity<>(errorDto, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(TicketHoldExpiredException.class)
+    public ResponseEntity<ErrorDto> handleTicketHoldExpiredException(TicketHoldExpiredException ex) {
+        log.error("Caught TicketHoldExpiredException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError("Ticket hold has expired");
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<ErrorDto> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException ex) {
+        log.error("Caught InvalidIdempotencyKeyException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError(ex.getMessage());
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorDto> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        log.error("Caught IdempotencyKeyReusedException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError(ex.getMessage());
+        return new ResponseEntity<>(errorDto, HttpStatus.UNPROCESSABLE_ENTITY); // 422
+    }
+
+    // Only reaches the client if the winning request's key expired before it could be read
+    @ExceptionHandler(DuplicateIdempotencyKeyException.class)
+    public ResponseEntity<ErrorDto> handleDuplicateIdempotencyKeyException(DuplicateIdempotencyKeyException ex) {
+        log.error("Caught DuplicateIdempotencyKeyException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError("Idempotency key was already used");
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT); // 409
+    }
+
+    @ExceptionHandler(InvalidQrCodePayloadException.class)
+    public ResponseEntity<ErrorDto> handleInvalidQrCodePayloadException(InvalidQrCodePayloadException ex) {
+        log.error("Caught InvalidQrCodePayloadException", ex);
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError(ex.getMessage());
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    // Expected in bulk once a ticket type sells out, so no stack trace
+    @ExceptionHandler(TicketsSoldOutException.class)
+    public ResponseEntity<ErrorDto> handleTicketsSoldOutException(TicketsSoldOutException ex) {
+        log.debug("Rejected purchase, tickets are sold out");
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError("Tickets are sold out");
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT); // 409
+    }
+
+    // Expected while a waiting room is active, so no stack trace
+    @ExceptionHandler(QueueAdmissionRequiredException.class)
+    public ResponseEntity<ErrorDto> handleQueueAdmissionRequiredException(QueueAdmissionRequiredException ex) {
+        log.debug("Rejected request without waiting room admission: {}", ex.getMessage());
+        ErrorDto errorDto = new ErrorDto();
+        errorDto.setError(ex.getMessage());
+        return new ResponseEntity<>(errorDto, HttpStatus.TOO_MANY_REQUESTS); // 429
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorDto> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         log.error("Caught MethodArgumentNotValidException", ex);
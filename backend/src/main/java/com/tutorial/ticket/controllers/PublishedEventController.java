@@ -5,6 +5,7 @@ import com.tutorial.ticket.domain.dtos.ListPublishedEventResponseDto;
 import com.tutorial.ticket.domain.entities.Event;
 import com.tutorial.ticket.mappers.EventMapper;
 import com.tutorial.ticket.services.EventService;
+import com.tutorial.ticket.services.PublishedEventCatalogService;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -23,16 +24,19 @@ public class PublishedEventController {
 
     private final EventService eventService;
     private final EventMapper eventMapper;
+    private final PublishedEventCatalogService publishedEventCatalogService;
 
     @GetMapping
     public ResponseEntity<Page<ListPublishedEventResponseDto>> listPublishedEvents(
             @RequestParam(required = false) String q,
             Pageable pageable
     ) {
-        Page<Event> events = (q != null && !q.trim().isEmpty())
-                ? eventService.searchPublishedEvents(q, pageable)
-                : eventService.listPublishedEvents(pageable);
+        // Plain browsing is served from the catalog cache; searches go to the database
+        if (q == null || q.trim().isEmpty()) {
+            return ResponseEntity.ok(publishedEventCatalogService.listPublishedEvents(pageable));
+        }
 
+        Page<Event> events = eventService.searchPublishedEvents(q, pageable);
         return ResponseEntity.ok(events.map(eventMapper::toListPublishedEventResponseDto));
     }
 
@@ -40,8 +44,7 @@ public class PublishedEventController {
     public ResponseEntity<GetPublishedEventDetailsResponseDto> getPublishedEventDetails(
             @PathVariable UUID eventId
     ) {
-        return eventService.getPublishedEvent(eventId)
-                .map(eventMapper::toGetPublishedEventDetailsResponseDto)
+        return publishedEventCatalogService.getPublishedEvent(eventId)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -1,33 +1,53 @@
 package com.tutorial.ticket.controllers;
 
+import com.tutorial.ticket.domain.QrCodeImageFormat;
 import com.tutorial.ticket.domain.dtos.GetTicketResponseDto;
 import com.tutorial.ticket.domain.dtos.ListTicketResponseDto;
+import com.tutorial.ticket.domain.entities.QrCode;
+import com.tutorial.ticket.domain.entities.QrCodeStatusEnum;
 import com.tutorial.ticket.mappers.TicketMapper;
+import com.tutorial.ticket.services.QrCodePayloadService;
 import com.tutorial.ticket.services.QrCodeService;
 import com.tutorial.ticket.services.TicketService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
 @RequestMapping(path = "/api/v1/tickets")
 @RequiredArgsConstructor
+@Validated
 public class TicketController {
 
     private final TicketService ticketService;
     private final TicketMapper ticketMapper;
     private final QrCodeService qrCodeService;
+    private final QrCodePayloadService qrCodePayloadService;
+
+    @Value("${ticket.qr.http.max-age-seconds:604800}")
+    private long qrCodeMaxAgeSeconds;
 
     // ----------------------------
     // GET /api/v1/tickets
@@ -67,19 +87,42 @@ public class TicketController {
     @GetMapping(path = "/{ticketId}/qr-codes")
     public ResponseEntity<byte[]> getTicketQrCode(
             @AuthenticationPrincipal Jwt jwt,
-            @PathVariable UUID ticketId
+            @PathVariable UUID ticketId,
+            @RequestParam(defaultValue = "300") @Min(64) @Max(1024) int size,
+            @RequestParam(defaultValue = "png") @Pattern(regexp = "(?i)png|svg") String format,
+            WebRequest webRequest
     ) {
         UUID userId = parseUserId(jwt);
 
-        byte[] qrCodeImage =
-                qrCodeService.getQrCodeImageForUserAndTicket(userId, ticketId);
+        QrCode qrCode = qrCodeService.getQrCodeForUserAndTicket(userId, ticketId);
+        QrCodeImageFormat imageFormat = QrCodeImageFormat.valueOf(format.toUpperCase(Locale.ROOT));
+
+        // The image only depends on these, so a repeat fetch is answered without rendering.
+        // Rotating the signing key changes the payload and therefore the image; the payload
+        // expiry comes from stored times, so it does not change between renders.
+        String signingKey = qrCodePayloadService.isSigningEnabled() ? "k" + qrCodePayloadService.getActiveKeyId() : "unsigned";
+        String etag = String.format("\"%s-%s-%d-%s-%s\"", qrCode.getId(), qrCode.getStatus(), size, imageFormat, signingKey);
+        CacheControl cacheControl = qrCode.getStatus() == QrCodeStatusEnum.ACTIVE
+                ? CacheControl.maxAge(Duration.ofSeconds(qrCodeMaxAgeSeconds)).cachePrivate()
+                : CacheControl.noCache().cachePrivate();
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        byte[] qrCodeImage = qrCodeService.getQrCodeImage(qrCode.getId(), size, imageFormat);
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_PNG);
+        headers.setContentType(MediaType.parseMediaType(imageFormat.getMediaType()));
         headers.setContentLength(qrCodeImage.length);
 
         return ResponseEntity.ok()
                 .headers(headers)
+                .eTag(etag)
+                .cacheControl(cacheControl)
                 .body(qrCodeImage);
     }
 
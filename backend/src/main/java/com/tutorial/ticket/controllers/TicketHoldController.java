@@ -0,0 +1,78 @@
+package com.tutorial.ticket.controllers;
+
+import com.tutorial.ticket.domain.dtos.CreateTicketHoldRequestDto;
+import com.tutorial.ticket.domain.dtos.PurchaseTicketsResponseDto;
+import com.tutorial.ticket.domain.dtos.TicketHoldResponseDto;
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.TicketHold;
+import com.tutorial.ticket.mappers.TicketHoldMapper;
+import com.tutorial.ticket.services.AdmissionQueueService;
+import com.tutorial.ticket.services.TicketInventoryService;
+import com.tutorial.ticket.services.TicketHoldService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.tutorial.ticket.util.JwtUtil.parseUserId;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/ticket-holds")
+public class TicketHoldController {
+
+    private final TicketHoldService ticketHoldService;
+    private final TicketHoldMapper ticketHoldMapper;
+    private final AdmissionQueueService admissionQueueService;
+    private final TicketInventoryService ticketInventoryService;
+
+    @PostMapping
+    public ResponseEntity<TicketHoldResponseDto> createHold(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(name = TicketTypeController.QUEUE_TOKEN_HEADER, required = false) String queueToken,
+            @Valid @RequestBody CreateTicketHoldRequestDto createTicketHoldRequestDto
+    ) {
+        UUID userId = parseUserId(jwt);
+        UUID eventId = ticketInventoryService.getEventId(createTicketHoldRequestDto.getTicketTypeId());
+        admissionQueueService.checkAdmitted(eventId, userId, queueToken);
+
+        TicketHold ticketHold = ticketHoldService.createHold(
+                userId,
+                createTicketHoldRequestDto.getTicketTypeId(),
+                createTicketHoldRequestDto.getQuantity()
+        );
+        admissionQueueService.recordPurchase(eventId);
+        return new ResponseEntity<>(ticketHoldMapper.toTicketHoldResponseDto(ticketHold), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping(path = "/{holdId}")
+    public ResponseEntity<Void> releaseHold(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID holdId
+    ) {
+        ticketHoldService.releaseHold(parseUserId(jwt), holdId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping(path = "/{holdId}/tickets")
+    public ResponseEntity<PurchaseTicketsResponseDto> purchaseHold(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID holdId
+    ) {
+        List<Ticket> tickets = ticketHoldService.purchaseHold(parseUserId(jwt), holdId);
+        List<UUID> ticketIds = tickets.stream().map(Ticket::getId).toList();
+        return new ResponseEntity<>(new PurchaseTicketsResponseDto(ticketIds), HttpStatus.CREATED);
+    }
+}
@@ -1,6 +1,15 @@
 package com.tutorial.ticket.controllers;
 
+import com.tutorial.ticket.domain.IdempotencyClaim;
+import com.tutorial.ticket.domain.dtos.PurchaseTicketsRequestDto;
+import com.tutorial.ticket.domain.dtos.PurchaseTicketsResponseDto;
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.mappers.TicketMapper;
+import com.tutorial.ticket.services.AdmissionQueueService;
+import com.tutorial.ticket.services.IdempotencyService;
+import com.tutorial.ticket.services.TicketInventoryService;
 import com.tutorial.ticket.services.TicketTypeService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,10 +17,14 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static com.tutorial.ticket.util.JwtUtil.parseUserId;
 
@@ -20,15 +33,65 @@ import static com.tutorial.ticket.util.JwtUtil.parseUserId;
 @RequestMapping(path = "/api/v1/events/{eventId}/ticket-types")
 public class TicketTypeController {
 
+    static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TicketTypeService ticketTypeService;
+    private final TicketMapper ticketMapper;
+    private final AdmissionQueueService admissionQueueService;
+    private final TicketInventoryService ticketInventoryService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping(path = "/{ticketTypeId}/tickets")
-    public ResponseEntity<Void> purchaseTicket(
+    public CompletableFuture<ResponseEntity<Void>> purchaseTicket(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID ticketTypeId,
+            @RequestHeader(name = QUEUE_TOKEN_HEADER, required = false) String queueToken,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        UUID userId = parseUserId(jwt);
+        if(idempotencyKey == null) {
+            return purchaseTicket(userId, ticketTypeId, queueToken, null)
+                    .thenApply(ticketId -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+        }
+
+        // A retry of a completed purchase is answered without queue admission or stock
+        IdempotencyClaim claim = new IdempotencyClaim(null, userId, idempotencyKey, ticketTypeId, 1, null);
+        return idempotencyService.execute(claim, () -> purchaseTicket(userId, ticketTypeId, queueToken, claim))
+                .thenApply(ticketId -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    // Buys several tickets, possibly of different types, all-or-nothing
+    @PostMapping(path = "/tickets")
+    public ResponseEntity<PurchaseTicketsResponseDto> purchaseTickets(
             @AuthenticationPrincipal Jwt jwt,
-            @PathVariable UUID ticketTypeId
+            @PathVariable UUID eventId,
+            @RequestHeader(name = QUEUE_TOKEN_HEADER, required = false) String queueToken,
+            @Valid @RequestBody PurchaseTicketsRequestDto purchaseTicketsRequestDto
     ) {
-        ticketTypeService.purchaseTicket(parseUserId(jwt), ticketTypeId);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        UUID userId = parseUserId(jwt);
+        admissionQueueService.checkAdmitted(eventId, userId, queueToken);
+
+        List<Ticket> tickets = ticketTypeService.purchaseTickets(
+                userId,
+                eventId,
+                ticketMapper.toPurchaseTicketsRequest(purchaseTicketsRequestDto)
+        );
+        admissionQueueService.recordPurchase(eventId);
+
+        List<UUID> ticketIds = tickets.stream().map(Ticket::getId).toList();
+        return new ResponseEntity<>(new PurchaseTicketsResponseDto(ticketIds), HttpStatus.CREATED);
+    }
+
+    private CompletableFuture<UUID> purchaseTicket(UUID userId, UUID ticketTypeId, String queueToken, IdempotencyClaim claim) {
+        // Admission is checked against the ticket type's own event, not the path
+        UUID eventId = ticketInventoryService.getEventId(ticketTypeId);
+        admissionQueueService.checkAdmitted(eventId, userId, queueToken);
+
+        return ticketTypeService.purchaseTicketAsync(userId, ticketTypeId, claim).thenApply(ticket -> {
+            admissionQueueService.recordPurchase(eventId);
+            return ticket.getId();
+        });
     }
 
 }
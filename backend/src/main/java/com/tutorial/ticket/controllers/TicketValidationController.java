@@ -1,11 +1,17 @@
 package com.tutorial.ticket.controllers;
 
+import com.tutorial.ticket.domain.TicketScan;
+import com.tutorial.ticket.domain.TicketScanResult;
 import com.tutorial.ticket.domain.dtos.TicketValidationRequestDto;
 import com.tutorial.ticket.domain.dtos.TicketValidationResponseDto;
+import com.tutorial.ticket.domain.dtos.ValidateTicketScansRequestDto;
+import com.tutorial.ticket.domain.dtos.ValidateTicketScansResponseDto;
 import com.tutorial.ticket.domain.entities.TicketValidation;
 import com.tutorial.ticket.mappers.TicketValidationMapper;
 import com.tutorial.ticket.services.TicketValidationService;
+import com.tutorial.ticket.services.impl.TicketScanBatcher;
 import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,6 +19,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(path = "/api/v1/ticket-validations")
 @RequiredArgsConstructor
@@ -20,23 +30,52 @@ public class TicketValidationController {
 
     private final TicketValidationService ticketValidationService;
     private final TicketValidationMapper ticketValidationMapper;
+    private final TicketScanBatcher ticketScanBatcher;
 
     @PostMapping
-    public ResponseEntity<TicketValidationResponseDto> validateTicket(
+    public CompletableFuture<ResponseEntity<TicketValidationResponseDto>> validateTicket(
             @RequestBody TicketValidationRequestDto ticketValidationRequestDto
     ){
         TicketValidationMethod method = ticketValidationRequestDto.getMethod();
+        if(!TicketValidationMethod.MANUAL.equals(method) && ticketScanBatcher.isEnabled()) {
+            TicketScan scan = new TicketScan(
+                    ticketValidationRequestDto.getId(),
+                    ticketValidationRequestDto.getPayload(),
+                    LocalDateTime.now()
+            );
+            return ticketScanBatcher.submit(scan).thenApply(result -> ResponseEntity.ok(
+                    ticketValidationMapper.toTicketValidationResponseDto(result)
+            ));
+        }
+
         TicketValidation ticketValidation;
         if(TicketValidationMethod.MANUAL.equals(method)) {
             ticketValidation = ticketValidationService.validateTicketManually(
                     ticketValidationRequestDto.getId());
+        } else if(ticketValidationRequestDto.getPayload() != null) {
+            ticketValidation = ticketValidationService.validateTicketByQrPayload(
+                    ticketValidationRequestDto.getPayload()
+            );
         } else {
             ticketValidation = ticketValidationService.validateTicketByQrCode(
                     ticketValidationRequestDto.getId()
             );
         }
-        return ResponseEntity.ok(
+        return CompletableFuture.completedFuture(ResponseEntity.ok(
                 ticketValidationMapper.toTicketValidationResponseDto(ticketValidation)
+        ));
+    }
+
+    // Scanners that were offline send their queued scans here in one request
+    @PostMapping(path = "/batch")
+    public ResponseEntity<ValidateTicketScansResponseDto> validateTicketScans(
+            @Valid @RequestBody ValidateTicketScansRequestDto validateTicketScansRequestDto
+    ){
+        List<TicketScanResult> results = ticketValidationService.validateTicketScans(
+                ticketValidationMapper.toTicketScans(validateTicketScansRequestDto.getScans())
+        );
+        return ResponseEntity.ok(
+                new ValidateTicketScansResponseDto(ticketValidationMapper.toTicketScanResultDtos(results))
         );
     }
 
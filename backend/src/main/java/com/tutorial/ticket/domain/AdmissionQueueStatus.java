@@ -0,0 +1,16 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmissionQueueStatus {
+
+    private String token;
+    // Number of users still waiting ahead of this one; 0 once admitted
+    private long position;
+    private boolean admitted;
+}
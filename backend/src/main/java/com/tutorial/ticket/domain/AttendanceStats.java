@@ -0,0 +1,26 @@
+package com.tutorial.ticket.domain;
+
+import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceStats {
+
+    private UUID eventId;
+    private LocalDateTime computedAt;
+    private long entered;
+    private long scans;
+    private long invalidScans;
+    // Over the last publishing interval
+    private double scansPerSecond;
+    private double invalidRate;
+    private Map<TicketValidationMethod, Long> scansByMethod;
+}
@@ -0,0 +1,22 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// A purchase tagged with an Idempotency-Key; the ID and ticket ID are filled in
+// by the purchase transaction that claims the key
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyClaim {
+
+    private UUID id;
+    private UUID userId;
+    private String key;
+    private UUID ticketTypeId;
+    private int quantity;
+    private UUID ticketId;
+}
@@ -0,0 +1,16 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurchaseTicketItemRequest {
+
+    private UUID ticketTypeId;
+    private Integer quantity;
+}
@@ -0,0 +1,16 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurchaseTicketsRequest {
+
+    private List<PurchaseTicketItemRequest> items = new ArrayList<>();
+}
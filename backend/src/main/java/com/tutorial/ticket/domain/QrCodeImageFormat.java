@@ -0,0 +1,22 @@
+package com.tutorial.ticket.domain;
+
+public enum QrCodeImageFormat {
+    PNG("image/png", "png"),
+    SVG("image/svg+xml", "svg");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    QrCodeImageFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,22 @@
+package com.tutorial.ticket.domain;
+
+import com.tutorial.ticket.domain.entities.QrCodeStatusEnum;
+import com.tutorial.ticket.domain.entities.TicketStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScannerManifestEntry {
+
+    private UUID qrCodeId;
+    private UUID ticketId;
+    private QrCodeStatusEnum qrCodeStatus;
+    private TicketStatusEnum ticketStatus;
+    private LocalDateTime firstValidatedAt;
+}
@@ -0,0 +1,20 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SignedQrCodePayload {
+
+    private int keyId;
+    private UUID qrCodeId;
+    private UUID ticketId;
+    private UUID eventId;
+    private Instant expiresAt;
+}
@@ -0,0 +1,5 @@
+package com.tutorial.ticket.domain;
+
+public enum TicketScanError {
+    QR_CODE_NOT_FOUND, INVALID_PAYLOAD
+}
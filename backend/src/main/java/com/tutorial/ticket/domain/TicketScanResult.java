@@ -0,0 +1,19 @@
+package com.tutorial.ticket.domain;
+
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketScanResult {
+
+    private UUID ticketId;
+    private TicketValidationStatusEnum status;
+    // Set instead of a status when the scan could not be matched to a ticket
+    private TicketScanError error;
+}
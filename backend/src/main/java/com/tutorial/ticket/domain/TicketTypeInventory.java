@@ -0,0 +1,18 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketTypeInventory {
+
+    private UUID ticketTypeId;
+    private UUID eventId;
+    private Integer totalAvailable;
+    private Integer sold;
+}
@@ -0,0 +1,18 @@
+package com.tutorial.ticket.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValidationManifestEntry {
+
+    private UUID qrCodeId;
+    private UUID ticketId;
+    private LocalDateTime firstValidatedAt;
+}
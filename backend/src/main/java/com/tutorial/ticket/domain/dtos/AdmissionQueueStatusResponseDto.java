@@ -0,0 +1,15 @@
+package com.tutorial.ticket.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmissionQueueStatusResponseDto {
+
+    private String token;
+    private long position;
+    private boolean admitted;
+}
@@ -0,0 +1,24 @@
+package com.tutorial.ticket.domain.dtos;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateTicketHoldRequestDto {
+
+    @NotNull(message = "Ticket type ID is required")
+    private UUID ticketTypeId;
+
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be greater than zero")
+    @Max(value = 20, message = "At most 20 tickets can be held at once")
+    private Integer quantity;
+}
@@ -0,0 +1,19 @@
+package com.tutorial.ticket.domain.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurchaseTicketsRequestDto {
+
+    @NotEmpty(message = "At least one ticket type is required")
+    @Valid
+    private List<PurchaseTicketItemRequestDto> items;
+}
@@ -0,0 +1,21 @@
+package com.tutorial.ticket.domain.dtos;
+
+import com.tutorial.ticket.domain.entities.TicketHoldStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketHoldResponseDto {
+
+    private UUID id;
+    private UUID ticketTypeId;
+    private Integer quantity;
+    private TicketHoldStatusEnum status;
+    private LocalDateTime expiresAt;
+}
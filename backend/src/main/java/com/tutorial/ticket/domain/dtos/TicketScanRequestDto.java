@@ -0,0 +1,22 @@
+package com.tutorial.ticket.domain.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketScanRequestDto {
+
+    private UUID id;
+    // Scanned QR contents; either a signed payload or a bare QR code ID
+    private String payload;
+
+    @NotNull(message = "Scan time is required")
+    private LocalDateTime scannedAt;
+}
@@ -0,0 +1,19 @@
+package com.tutorial.ticket.domain.dtos;
+
+import com.tutorial.ticket.domain.TicketScanError;
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TicketScanResultDto {
+
+    private UUID ticketId;
+    private TicketValidationStatusEnum status;
+    private TicketScanError error;
+}
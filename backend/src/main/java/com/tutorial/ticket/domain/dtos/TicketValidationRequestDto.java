@@ -12,5 +12,7 @@ import java.util.UUID;
 @NoArgsConstructor
 public class TicketValidationRequestDto {
     private UUID id;
+    // Scanned QR contents; either a signed payload or a bare QR code ID
+    private String payload;
     private TicketValidationMethod method;
 }
@@ -0,0 +1,21 @@
+package com.tutorial.ticket.domain.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValidateTicketScansRequestDto {
+
+    @NotEmpty(message = "At least one scan is required")
+    @Size(max = 10000, message = "At most 10000 scans can be sent at once")
+    @Valid
+    private List<TicketScanRequestDto> scans;
+}
@@ -0,0 +1,17 @@
+package com.tutorial.ticket.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValidateTicketScansResponseDto {
+
+    // In the same order as the scans in the request
+    private List<TicketScanResultDto> results = new ArrayList<>();
+}
@@ -1,6 +1,8 @@
 package com.tutorial.ticket.domain.entities;
 
 
+import com.tutorial.ticket.domain.listeners.PublishedEventCacheListener;
+import com.tutorial.ticket.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -14,6 +16,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "events")
+@EntityListeners(PublishedEventCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,7 +27,7 @@ public class Event {
 
     @Id
     @Column(name = "id", updatable = false, nullable = false )
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(name = "name", nullable = false)
@@ -0,0 +1,65 @@
+package com.tutorial.ticket.domain.entities;
+
+import com.tutorial.ticket.util.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Entity
+@Table(
+        name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_idempotency_keys_user_key",
+                columnNames = {"user_id", "idempotency_key"}
+        ),
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    @TimeOrderedUuid
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private String key;
+
+    // What the key was used for; a retry asking for anything else is rejected
+    @Column(name = "ticket_type_id", nullable = false, updatable = false)
+    private UUID ticketTypeId;
+
+    @Column(name = "quantity", nullable = false, updatable = false)
+    private Integer quantity;
+
+    // Set by the same transaction that claims the key, so it is never null once committed
+    @Column(name = "ticket_id")
+    private UUID ticketId;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyKey that = (IdempotencyKey) o;
+        return Objects.equals(id, that.id) && Objects.equals(userId, that.userId) && Objects.equals(key, that.key) && Objects.equals(ticketTypeId, that.ticketTypeId) && Objects.equals(quantity, that.quantity) && Objects.equals(ticketId, that.ticketId) && Objects.equals(createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, userId, key, ticketTypeId, quantity, ticketId, createdAt);
+    }
+}
@@ -1,5 +1,6 @@
 package com.tutorial.ticket.domain.entities;
 
+import com.tutorial.ticket.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -22,7 +23,7 @@ public class Ticket {
 
     @Id
     @Column(name = "id", nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(name = "status", nullable = false)
@@ -37,6 +38,10 @@ public class Ticket {
     @JoinColumn(name = "purchaser_id")
     private User purchaser;
 
+    // Set once by the first VALID scan; decides every later scan without reading validations
+    @Column(name = "first_validated_at")
+    private LocalDateTime firstValidatedAt;
+
 
     @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL)
     private List<TicketValidation> validations = new ArrayList<>();
@@ -0,0 +1,5 @@
+package com.tutorial.ticket.domain.entities;
+
+public enum TicketHoldStatusEnum {
+    ACTIVE, PURCHASED, RELEASED, EXPIRED
+}
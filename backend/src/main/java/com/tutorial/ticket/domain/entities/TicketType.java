@@ -1,8 +1,11 @@
 package com.tutorial.ticket.domain.entities;
 
 
+import com.tutorial.ticket.domain.listeners.PublishedEventCacheListener;
+import com.tutorial.ticket.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -14,6 +17,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "ticket_types")
+@EntityListeners(PublishedEventCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,7 +28,7 @@ public class TicketType {
 
     @Id
     @Column(name = "id", nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(name = "name", nullable = false)
@@ -39,6 +43,12 @@ public class TicketType {
     @Column(name = "total_available")
     private Integer totalAvailable;
 
+    // Only the conditional bulk updates in TicketTypeRepository change it; an entity save would write back a stale count
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "sold", nullable = false, updatable = false)
+    private Integer sold = 0;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id")
     private Event event;
@@ -1,6 +1,7 @@
 package com.tutorial.ticket.domain.entities;
 
 
+import com.tutorial.ticket.util.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -21,7 +22,7 @@ public class TicketValidation {
 
     @Id
     @Column(name = "id", nullable = false, updatable = false)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(name = "status", nullable = false)
@@ -37,6 +38,10 @@ public class TicketValidation {
     @JoinColumn(name = "ticket_id")
     private Ticket ticket;
 
+    // When the scanner read the code, which for offline scans is earlier than createdAt
+    @Column(name = "scanned_at")
+    private LocalDateTime scannedAt;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false, nullable = false )
     private LocalDateTime createdAt;
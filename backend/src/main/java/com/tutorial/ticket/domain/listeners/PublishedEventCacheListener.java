@@ -0,0 +1,57 @@
+package com.tutorial.ticket.domain.listeners;
+
+import com.tutorial.ticket.domain.entities.Event;
+import com.tutorial.ticket.domain.entities.TicketType;
+import com.tutorial.ticket.services.PublishedEventCatalogService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Evicts the public catalog whenever an event or one of its ticket types is
+ * written through JPA, including status changes away from PUBLISHED. Hibernate
+ * creates this listener through Spring; the catalog is looked up lazily since
+ * it depends on repositories that need the entity manager factory first.
+ *
+ * <p>Bulk JPQL updates bypass entity callbacks. The ones that exist only touch
+ * sold counts, which the catalog does not show.
+ */
+public class PublishedEventCacheListener {
+
+    private final ObjectProvider<PublishedEventCatalogService> publishedEventCatalogService;
+
+    public PublishedEventCacheListener(ObjectProvider<PublishedEventCatalogService> publishedEventCatalogService) {
+        this.publishedEventCatalogService = publishedEventCatalogService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        UUID eventId = switch (entity) {
+            case Event event -> event.getId();
+            case TicketType ticketType -> ticketType.getEvent() != null ? ticketType.getEvent().getId() : null;
+            default -> null;
+        };
+        if (eventId == null) {
+            return;
+        }
+
+        // Evicting before commit would let a concurrent read cache the old row again
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishedEventCatalogService.getObject().evictEvent(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishedEventCatalogService.getObject().evictEvent(eventId);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class DuplicateIdempotencyKeyException extends EventTicketException {
+
+    public DuplicateIdempotencyKeyException() {
+    }
+
+    public DuplicateIdempotencyKeyException(String message) {
+        super(message);
+    }
+
+    public DuplicateIdempotencyKeyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DuplicateIdempotencyKeyException(Throwable cause) {
+        super(cause);
+    }
+
+    public DuplicateIdempotencyKeyException(String message, Throwable cause, boolean enableSuppression,
+                                            boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
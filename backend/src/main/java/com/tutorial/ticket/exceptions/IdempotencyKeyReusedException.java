@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class IdempotencyKeyReusedException extends EventTicketException {
+
+    public IdempotencyKeyReusedException() {
+    }
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+
+    public IdempotencyKeyReusedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public IdempotencyKeyReusedException(Throwable cause) {
+        super(cause);
+    }
+
+    public IdempotencyKeyReusedException(String message, Throwable cause, boolean enableSuppression,
+                                         boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class InvalidIdempotencyKeyException extends EventTicketException {
+
+    public InvalidIdempotencyKeyException() {
+    }
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+
+    public InvalidIdempotencyKeyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidIdempotencyKeyException(Throwable cause) {
+        super(cause);
+    }
+
+    public InvalidIdempotencyKeyException(String message, Throwable cause, boolean enableSuppression,
+                                          boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class InvalidQrCodePayloadException extends EventTicketException {
+
+    public InvalidQrCodePayloadException() {
+    }
+
+    public InvalidQrCodePayloadException(String message) {
+        super(message);
+    }
+
+    public InvalidQrCodePayloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidQrCodePayloadException(Throwable cause) {
+        super(cause);
+    }
+
+    public InvalidQrCodePayloadException(String message, Throwable cause, boolean enableSuppression,
+                                         boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class QueueAdmissionRequiredException extends EventTicketException {
+
+    public QueueAdmissionRequiredException() {
+    }
+
+    public QueueAdmissionRequiredException(String message) {
+        super(message);
+    }
+
+    public QueueAdmissionRequiredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public QueueAdmissionRequiredException(Throwable cause) {
+        super(cause);
+    }
+
+    public QueueAdmissionRequiredException(String message, Throwable cause, boolean enableSuppression,
+                                           boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
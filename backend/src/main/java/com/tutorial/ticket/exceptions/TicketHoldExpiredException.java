@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class TicketHoldExpiredException extends EventTicketException {
+
+    public TicketHoldExpiredException() {
+    }
+
+    public TicketHoldExpiredException(String message) {
+        super(message);
+    }
+
+    public TicketHoldExpiredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TicketHoldExpiredException(Throwable cause) {
+        super(cause);
+    }
+
+    public TicketHoldExpiredException(String message, Throwable cause, boolean enableSuppression,
+                                      boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
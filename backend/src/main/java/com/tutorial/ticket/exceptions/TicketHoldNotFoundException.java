@@ -0,0 +1,24 @@
+package com.tutorial.ticket.exceptions;
+
+public class TicketHoldNotFoundException extends EventTicketException {
+
+    public TicketHoldNotFoundException() {
+    }
+
+    public TicketHoldNotFoundException(String message) {
+        super(message);
+    }
+
+    public TicketHoldNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TicketHoldNotFoundException(Throwable cause) {
+        super(cause);
+    }
+
+    public TicketHoldNotFoundException(String message, Throwable cause, boolean enableSuppression,
+                                       boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
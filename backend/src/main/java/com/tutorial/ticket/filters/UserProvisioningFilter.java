@@ -15,14 +15,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @RequiredArgsConstructor
 public class UserProvisioningFilter extends OncePerRequestFilter {
 
+    private static final int MAX_CACHED_USERS = 100_000;
+
     private final UserRepository userRepository;
 
+    // Users known to exist, so frequent requests (e.g. waiting room polls) skip the lookup
+    private final Set<UUID> provisionedUsers = ConcurrentHashMap.newKeySet();
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -55,6 +62,11 @@ public class UserProvisioningFilter extends OncePerRequestFilter {
             return;
         }
 
+        if (provisionedUsers.contains(keycloakId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         // Create user if not exists
         if (!userRepository.existsById(keycloakId)) {
             User user = new User();
@@ -74,6 +86,11 @@ public class UserProvisioningFilter extends OncePerRequestFilter {
             userRepository.save(user);
         }
 
+        if (provisionedUsers.size() >= MAX_CACHED_USERS) {
+            provisionedUsers.clear();
+        }
+        provisionedUsers.add(keycloakId);
+
         filterChain.doFilter(request, response);
     }
 }
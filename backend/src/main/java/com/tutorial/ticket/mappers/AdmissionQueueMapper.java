@@ -0,0 +1,11 @@
+package com.tutorial.ticket.mappers;
+
+import com.tutorial.ticket.domain.AdmissionQueueStatus;
+import com.tutorial.ticket.domain.dtos.AdmissionQueueStatusResponseDto;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface AdmissionQueueMapper {
+
+    AdmissionQueueStatusResponseDto toAdmissionQueueStatusResponseDto(AdmissionQueueStatus status);
+}
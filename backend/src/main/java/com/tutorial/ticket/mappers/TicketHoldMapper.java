@@ -0,0 +1,15 @@
+package com.tutorial.ticket.mappers;
+
+import com.tutorial.ticket.domain.dtos.TicketHoldResponseDto;
+import com.tutorial.ticket.domain.entities.TicketHold;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface TicketHoldMapper {
+
+    @Mapping(target = "ticketTypeId", source = "ticketType.id")
+    TicketHoldResponseDto toTicketHoldResponseDto(TicketHold ticketHold);
+
+}
@@ -1,8 +1,10 @@
 package com.tutorial.ticket.mappers;
 
+import com.tutorial.ticket.domain.PurchaseTicketsRequest;
 import com.tutorial.ticket.domain.dtos.GetTicketResponseDto;
 import com.tutorial.ticket.domain.dtos.ListTicketResponseDto;
 import com.tutorial.ticket.domain.dtos.ListTicketTicketTypeResponseDto;
+import com.tutorial.ticket.domain.dtos.PurchaseTicketsRequestDto;
 import com.tutorial.ticket.domain.entities.Ticket;
 import com.tutorial.ticket.domain.entities.TicketType;
 import org.mapstruct.Mapper;
@@ -24,4 +26,6 @@ public interface TicketMapper {
     @Mapping(target = "eventEnd", source = "ticket.ticketType.event.end")
     GetTicketResponseDto toGetTicketResponseDto(Ticket ticket);
 
+    PurchaseTicketsRequest toPurchaseTicketsRequest(PurchaseTicketsRequestDto dto);
+
 }
@@ -1,15 +1,31 @@
 package com.tutorial.ticket.mappers;
 
+import com.tutorial.ticket.domain.TicketScan;
+import com.tutorial.ticket.domain.TicketScanResult;
+import com.tutorial.ticket.domain.dtos.TicketScanRequestDto;
+import com.tutorial.ticket.domain.dtos.TicketScanResultDto;
 import com.tutorial.ticket.domain.dtos.TicketValidationResponseDto;
 import com.tutorial.ticket.domain.entities.TicketValidation;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface TicketValidationMapper {
 
     @Mapping(target = "ticketId", source = "ticket.id")
     TicketValidationResponseDto toTicketValidationResponseDto(TicketValidation ticketValidation);
 
+    TicketValidationResponseDto toTicketValidationResponseDto(TicketScanResult result);
+
+    TicketScan toTicketScan(TicketScanRequestDto dto);
+
+    List<TicketScan> toTicketScans(List<TicketScanRequestDto> dtos);
+
+    TicketScanResultDto toTicketScanResultDto(TicketScanResult result);
+
+    List<TicketScanResultDto> toTicketScanResultDtos(List<TicketScanResult> results);
+
 }
@@ -8,6 +8,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface EventRepository extends JpaRepository<Event, UUID> {
@@ -30,4 +33,32 @@ public interface EventRepository extends JpaRepository<Event, UUID> {
             @Param("status") EventStatusEnum status,
             Pageable pageable
     );
+
+    @Query("""
+        SELECT COUNT(e) > 0
+        FROM Event e LEFT JOIN e.staff s
+        WHERE e.id = :eventId
+          AND (e.organizer.id = :userId OR s.id = :userId)
+    """)
+    boolean isOrganizerOrStaff(@Param("eventId") UUID eventId, @Param("userId") UUID userId);
+
+    @Query("""
+        SELECT e.id
+        FROM Event e
+        WHERE e.status = com.tutorial.ticket.domain.entities.EventStatusEnum.PUBLISHED
+          AND e.start <= :startsBefore
+          AND (e.end IS NULL OR e.end >= :now)
+    """)
+    List<UUID> findUpcomingPublishedEventIds(
+            @Param("now") LocalDateTime now,
+            @Param("startsBefore") LocalDateTime startsBefore
+    );
+
+    @Query("""
+        SELECT e.id
+        FROM Event e
+        WHERE e.id IN :ids
+          AND e.end < :now
+    """)
+    List<UUID> findEndedEventIds(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
 }
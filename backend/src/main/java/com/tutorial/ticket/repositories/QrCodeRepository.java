@@ -1,15 +1,117 @@
 package com.tutorial.ticket.repositories;
 
+import com.tutorial.ticket.domain.QrCodeTicketReference;
+import com.tutorial.ticket.domain.RevokedTicket;
+import com.tutorial.ticket.domain.ScannerManifestEntry;
+import com.tutorial.ticket.domain.ValidationManifestEntry;
 import com.tutorial.ticket.domain.entities.QrCode;
 import com.tutorial.ticket.domain.entities.QrCodeStatusEnum;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface QrCodeRepository extends JpaRepository<QrCode, UUID> {
     Optional<QrCode> findByTicketIdAndTicketPurchaserId(UUID ticketId, UUID ticketPurchaseId);
     Optional<QrCode> findByIdAndStatus(UUID id, QrCodeStatusEnum status);
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.QrCodeTicketReference(q.id, t.id, e.id, e.end, q.createdAt)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt JOIN tt.event e
+        WHERE q.id = :id
+    """)
+    Optional<QrCodeTicketReference> findTicketReference(@Param("id") UUID id);
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.QrCodeTicketReference(q.id, t.id, e.id, e.end, q.createdAt)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt JOIN tt.event e
+        WHERE q.id IN :ids
+          AND q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.ACTIVE
+    """)
+    List<QrCodeTicketReference> findActiveTicketReferences(@Param("ids") Collection<UUID> ids);
+
+    // Keyset page: pass the last QR code ID of the previous page, and only the size of the Pageable
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.QrCodeTicketReference(q.id, t.id, e.id, e.end, q.createdAt)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt JOIN tt.event e
+        WHERE e.id = :eventId
+          AND q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.ACTIVE
+          AND q.id > :after
+        ORDER BY q.id
+    """)
+    List<QrCodeTicketReference> findActivePageByEventId(
+            @Param("eventId") UUID eventId,
+            @Param("after") UUID after,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT COUNT(q)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt
+        WHERE tt.event.id = :eventId
+          AND q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.ACTIVE
+          AND t.status = com.tutorial.ticket.domain.entities.TicketStatusEnum.PURCHASED
+    """)
+    long countManifestEntries(@Param("eventId") UUID eventId);
+
+    // Read through a cursor; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.ValidationManifestEntry(q.id, t.id, t.firstValidatedAt)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt
+        WHERE tt.event.id = :eventId
+          AND q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.ACTIVE
+          AND t.status = com.tutorial.ticket.domain.entities.TicketStatusEnum.PURCHASED
+    """)
+    Stream<ValidationManifestEntry> streamManifestEntries(@Param("eventId") UUID eventId);
+
+    // Tickets of the event that were cancelled, or whose QR code expired, since the given time
+    @Query("""
+        SELECT DISTINCT t.id
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt
+        WHERE tt.event.id = :eventId
+          AND ((t.status = com.tutorial.ticket.domain.entities.TicketStatusEnum.CANCELLED AND t.updatedAt >= :since)
+            OR (q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.EXPIRED AND q.updatedAt >= :since))
+    """)
+    List<UUID> findRevokedTicketIdsSince(@Param("eventId") UUID eventId, @Param("since") LocalDateTime since);
+
+    // Keyset page: pass the last QR code ID of the previous page, and only the size of the Pageable
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.ScannerManifestEntry(q.id, t.id, q.status, t.status, t.firstValidatedAt)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt
+        WHERE tt.event.id = :eventId
+          AND (q.updatedAt >= :since OR t.updatedAt >= :since)
+          AND q.id > :after
+        ORDER BY q.id
+    """)
+    List<ScannerManifestEntry> findScannerManifestPage(
+            @Param("eventId") UUID eventId,
+            @Param("since") LocalDateTime since,
+            @Param("after") UUID after,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.RevokedTicket(tt.event.id, t.id)
+        FROM QrCode q JOIN q.ticket t JOIN t.ticketType tt JOIN tt.event e
+        WHERE q.status = com.tutorial.ticket.domain.entities.QrCodeStatusEnum.EXPIRED
+          AND (e.end IS NULL OR e.end >= :endedAfter)
+          AND q.updatedAt >= :since
+    """)
+    List<RevokedTicket> findExpiredQrCodeTickets(
+            @Param("endedAfter") LocalDateTime endedAfter,
+            @Param("since") LocalDateTime since
+    );
 }
@@ -0,0 +1,17 @@
+package com.tutorial.ticket.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface TicketFirstValidationRepository {
+
+    /**
+     * Batch form of {@link TicketRepository#markFirstValidated(UUID, LocalDateTime)},
+     * recording each ticket's own validation time.
+     *
+     * @return the tickets this call validated
+     */
+    Set<UUID> markFirstValidated(Map<UUID, LocalDateTime> validatedAtByTicketId);
+}
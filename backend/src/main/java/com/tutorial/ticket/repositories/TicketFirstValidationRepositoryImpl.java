@@ -0,0 +1,51 @@
+package com.tutorial.ticket.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// One JDBC batch of conditional updates; a statement that updated its row claimed the ticket
+@RequiredArgsConstructor
+public class TicketFirstValidationRepositoryImpl implements TicketFirstValidationRepository {
+
+    private static final String UPDATE_SQL = """
+        UPDATE ticket
+        SET first_validated_at = ?, updated_at = ?
+        WHERE id = ?
+          AND first_validated_at IS NULL
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<UUID> markFirstValidated(Map<UUID, LocalDateTime> validatedAtByTicketId) {
+        if (validatedAtByTicketId.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        // Same lock order in every batch, so two overlapping batches cannot deadlock
+        List<Map.Entry<UUID, LocalDateTime>> entries = validatedAtByTicketId.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        LocalDateTime now = LocalDateTime.now();
+        int[][] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setObject(1, entry.getValue());
+            statement.setObject(2, now);
+            statement.setObject(3, entry.getKey());
+        });
+
+        Set<UUID> validated = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updateCounts[0][i] == 1) {
+                validated.add(entries.get(i).getKey());
+            }
+        }
+        return validated;
+    }
+}
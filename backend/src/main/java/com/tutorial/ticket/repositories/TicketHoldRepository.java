@@ -0,0 +1,49 @@
+package com.tutorial.ticket.repositories;
+
+import com.tutorial.ticket.domain.TicketHoldExpiry;
+import com.tutorial.ticket.domain.entities.TicketHold;
+import com.tutorial.ticket.domain.entities.TicketHoldStatusEnum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TicketHoldRepository extends JpaRepository<TicketHold, UUID> {
+
+    Optional<TicketHold> findByIdAndHolderId(UUID id, UUID holderId);
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.TicketHoldExpiry(h.id, h.expiresAt)
+        FROM TicketHold h
+        WHERE h.status = com.tutorial.ticket.domain.entities.TicketHoldStatusEnum.ACTIVE
+    """)
+    List<TicketHoldExpiry> findActiveExpiries();
+
+    // Moves an ACTIVE hold to its final status; returns 0 if it was already closed
+    @Modifying
+    @Query("""
+        UPDATE TicketHold h
+        SET h.status = :status, h.updatedAt = :now
+        WHERE h.id = :id
+          AND h.status = com.tutorial.ticket.domain.entities.TicketHoldStatusEnum.ACTIVE
+    """)
+    int close(@Param("id") UUID id, @Param("status") TicketHoldStatusEnum status, @Param("now") LocalDateTime now);
+
+    // Like close, but refuses holds whose expiry has passed even if the timer has not fired yet
+    @Modifying
+    @Query("""
+        UPDATE TicketHold h
+        SET h.status = :status, h.updatedAt = :now
+        WHERE h.id = :id
+          AND h.status = com.tutorial.ticket.domain.entities.TicketHoldStatusEnum.ACTIVE
+          AND h.expiresAt > :now
+    """)
+    int closeUnexpired(@Param("id") UUID id, @Param("status") TicketHoldStatusEnum status, @Param("now") LocalDateTime now);
+}
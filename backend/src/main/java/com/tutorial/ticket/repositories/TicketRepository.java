@@ -1,20 +1,81 @@
 package com.tutorial.ticket.repositories;
 
+import com.tutorial.ticket.domain.RevokedTicket;
+import com.tutorial.ticket.domain.TicketFirstValidation;
 import com.tutorial.ticket.domain.entities.Ticket;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, UUID> {
+public interface TicketRepository extends JpaRepository<Ticket, UUID>, TicketFirstValidationRepository {
 
     int countByTicketTypeId(UUID ticketTypeId);
 
+    long countByTicketTypeEventIdAndFirstValidatedAtIsNotNull(UUID eventId);
+
     Page<Ticket> findByPurchaserId(UUID purchaserId, Pageable pageable);
 
     Optional<Ticket> findByIdAndPurchaserId(UUID id, UUID purchaserId);
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.RevokedTicket(tt.event.id, t.id)
+        FROM Ticket t JOIN t.ticketType tt JOIN tt.event e
+        WHERE t.status = com.tutorial.ticket.domain.entities.TicketStatusEnum.CANCELLED
+          AND (e.end IS NULL OR e.end >= :endedAfter)
+          AND t.updatedAt >= :since
+    """)
+    List<RevokedTicket> findCancelledTickets(
+            @Param("endedAfter") LocalDateTime endedAfter,
+            @Param("since") LocalDateTime since
+    );
+
+    // Every path that sets first_validated_at also bumps updated_at, so this catches all of them
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.TicketFirstValidation(t.id, t.firstValidatedAt)
+        FROM Ticket t JOIN t.ticketType tt
+        WHERE tt.event.id = :eventId
+          AND t.firstValidatedAt IS NOT NULL
+          AND t.updatedAt >= :since
+    """)
+    List<TicketFirstValidation> findValidatedSince(@Param("eventId") UUID eventId, @Param("since") LocalDateTime since);
+
+    // Returns 1 for the first VALID scan of the ticket and 0 for every later one
+    @Modifying
+    @Query("""
+        UPDATE Ticket t
+        SET t.firstValidatedAt = :now, t.updatedAt = :now
+        WHERE t.id = :ticketId
+          AND t.firstValidatedAt IS NULL
+    """)
+    int markFirstValidated(@Param("ticketId") UUID ticketId, @Param("now") LocalDateTime now);
+
+    // Tickets validated before first_validated_at existed
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE Ticket t
+        SET t.firstValidatedAt = (
+            SELECT MIN(v.createdAt) FROM TicketValidation v
+            WHERE v.ticket = t
+              AND v.status = com.tutorial.ticket.domain.entities.TicketValidationStatusEnum.VALID
+        )
+        WHERE t.firstValidatedAt IS NULL
+          AND EXISTS (
+            SELECT v.id FROM TicketValidation v
+            WHERE v.ticket = t
+              AND v.status = com.tutorial.ticket.domain.entities.TicketValidationStatusEnum.VALID
+          )
+    """)
+    int backfillFirstValidatedAt();
 }
@@ -1,13 +1,17 @@
 package com.tutorial.ticket.repositories;
 
+import com.tutorial.ticket.domain.TicketTypeInventory;
 import com.tutorial.ticket.domain.entities.TicketType;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,4 +21,36 @@ public interface TicketTypeRepository extends JpaRepository<TicketType, UUID> {
     @Query("SELECT tt FROM TicketType tt WHERE tt.id = :id")
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<TicketType> findByIdWithLock(@Param("id") UUID id);
+
+    @Query("SELECT tt.id FROM TicketType tt WHERE tt.event.id = :eventId AND tt.id IN :ids")
+    List<UUID> findIdsByEventIdAndIdIn(@Param("eventId") UUID eventId, @Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT new com.tutorial.ticket.domain.TicketTypeInventory(tt.id, tt.event.id, tt.totalAvailable, tt.sold) FROM TicketType tt")
+    List<TicketTypeInventory> findAllInventory();
+
+    @Query("""
+        SELECT new com.tutorial.ticket.domain.TicketTypeInventory(tt.id, tt.event.id, tt.totalAvailable, tt.sold)
+        FROM TicketType tt
+        WHERE tt.id IN :ids
+    """)
+    List<TicketTypeInventory> findInventoryByIds(@Param("ids") Collection<UUID> ids);
+
+    // Returns 1 when the tickets were reserved, 0 when the type is sold out
+    @Modifying
+    @Query("""
+        UPDATE TicketType tt
+        SET tt.sold = tt.sold + :quantity
+        WHERE tt.id = :id
+          AND tt.sold + :quantity <= tt.totalAvailable
+    """)
+    int reserveTickets(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+        UPDATE TicketType tt
+        SET tt.sold = tt.sold - :quantity
+        WHERE tt.id = :id
+          AND tt.sold >= :quantity
+    """)
+    int releaseTickets(@Param("id") UUID id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,21 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.AdmissionQueueStatus;
+
+import java.util.UUID;
+
+public interface AdmissionQueueService {
+
+    AdmissionQueueStatus join(UUID eventId, UUID userId);
+
+    AdmissionQueueStatus getStatus(UUID eventId, UUID userId, String token);
+
+    /**
+     * Throws {@link com.tutorial.ticket.exceptions.QueueAdmissionRequiredException}
+     * unless the waiting room is disabled or the token has been admitted.
+     */
+    void checkAdmitted(UUID eventId, UUID userId, String token);
+
+    // Called once an admitted purchase has gone through; the admission rate follows these
+    void recordPurchase(UUID eventId);
+}
@@ -0,0 +1,16 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+public interface AttendanceStatsService {
+
+    // Called for every scan that was decided, on the scanning thread; must stay cheap
+    void recordScan(UUID eventId, TicketValidationMethod method, TicketValidationStatusEnum status);
+
+    // Streams AttendanceStats for the event until the client disconnects
+    SseEmitter subscribe(UUID eventId);
+}
@@ -17,6 +17,9 @@ public interface EventService {
 
     Event getEvent(UUID organizerId, UUID eventId);
 
+    // For endpoints gate staff use as well as the organizer; throws if the user is neither
+    void checkOrganizerOrStaff(UUID userId, UUID eventId);
+
     // Public (published) endpoints
     Page<Event> listPublishedEvents(Pageable pageable);
 
@@ -0,0 +1,27 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.IdempotencyClaim;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    // Runs the purchase once per user and key; retries get the original ticket ID and
+    // a key reused for a different purchase is rejected. The purchase must claim the key.
+    CompletableFuture<UUID> execute(IdempotencyClaim claim, Supplier<CompletableFuture<UUID>> purchase);
+
+    // The methods below run inside the purchase transaction, so a key commits or rolls
+    // back together with its tickets.
+
+    // Returns the IDs of the claims this transaction now holds; the other keys were already used
+    Set<UUID> claim(List<IdempotencyClaim> claims);
+
+    // Gives up claims whose purchase was rejected while the rest of the transaction goes on
+    void release(List<IdempotencyClaim> claims);
+
+    void recordTickets(List<IdempotencyClaim> claims);
+}
@@ -0,0 +1,19 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.dtos.GetPublishedEventDetailsResponseDto;
+import com.tutorial.ticket.domain.dtos.ListPublishedEventResponseDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PublishedEventCatalogService {
+
+    Page<ListPublishedEventResponseDto> listPublishedEvents(Pageable pageable);
+
+    Optional<GetPublishedEventDetailsResponseDto> getPublishedEvent(UUID eventId);
+
+    // Drops the event and every cached page; called once the change has committed
+    void evictEvent(UUID eventId);
+}
@@ -0,0 +1,26 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.QrCodeTicketReference;
+import com.tutorial.ticket.domain.SignedQrCodePayload;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface QrCodePayloadService {
+
+    boolean isSigningEnabled();
+
+    // Payloads are signed with this key, so it is part of the QR image's identity
+    int getActiveKeyId();
+
+    String createPayload(QrCodeTicketReference reference);
+
+    /**
+     * Verifies a scanned payload in memory.
+     *
+     * @return empty when the payload is not in the signed format (e.g. a bare QR code ID)
+     */
+    Optional<SignedQrCodePayload> parse(String payload);
+
+    boolean isRevoked(UUID eventId, UUID ticketId);
+}
@@ -1,12 +1,23 @@
 package com.tutorial.ticket.services;
 
+import com.tutorial.ticket.domain.QrCodeImageFormat;
 import com.tutorial.ticket.domain.entities.QrCode;
 import com.tutorial.ticket.domain.entities.Ticket;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.UUID;
 
 public interface QrCodeService {
 
     QrCode generateQrCode(Ticket ticket);
 
-    byte[] getQrCodeImageForUserAndTicket(UUID userId, UUID ticketId);
+    List<QrCode> generateQrCodes(List<Ticket> tickets);
+
+    QrCode getQrCodeForUserAndTicket(UUID userId, UUID ticketId);
+
+    byte[] getQrCodeImage(UUID qrCodeId, int size, QrCodeImageFormat format);
+
+    // Writes a ZIP with one image per active QR code of the event, named after the ticket
+    void exportEventQrCodes(UUID eventId, int size, QrCodeImageFormat format, OutputStream outputStream) throws IOException;
 }
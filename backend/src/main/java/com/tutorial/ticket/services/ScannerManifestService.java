@@ -0,0 +1,16 @@
+package com.tutorial.ticket.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public interface ScannerManifestService {
+
+    /**
+     * Writes the binary manifest handheld scanners use to validate offline.
+     * Without {@code since} it holds every valid QR code of the event; with
+     * the version of an earlier manifest it holds only the entries that
+     * changed after it, including those that became invalid.
+     */
+    void writeManifest(UUID eventId, Long since, OutputStream outputStream) throws IOException;
+}
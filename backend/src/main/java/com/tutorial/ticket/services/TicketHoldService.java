@@ -0,0 +1,16 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.TicketHold;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface TicketHoldService {
+
+    TicketHold createHold(UUID userId, UUID ticketTypeId, int quantity);
+
+    void releaseHold(UUID userId, UUID holdId);
+
+    List<Ticket> purchaseHold(UUID userId, UUID holdId);
+}
@@ -0,0 +1,39 @@
+package com.tutorial.ticket.services;
+
+import java.util.UUID;
+
+public interface TicketInventoryService {
+
+    /**
+     * Takes {@code quantity} tickets of the given type from the in-memory stock.
+     * When called inside a transaction the reservation is confirmed on commit
+     * and handed back to the stock on rollback.
+     *
+     * @return false when not enough tickets are left
+     */
+    boolean tryReserve(UUID ticketTypeId, int quantity);
+
+    // Stock that came back to the database, e.g. an expired hold; clears the sold out mark
+    void release(UUID ticketTypeId, int quantity);
+
+    // Hands back tickets the counter granted but the database did not have. Unlike
+    // release, a sold out mark from markSoldOut stays.
+    void returnUnallocated(UUID ticketTypeId, int quantity);
+
+    int getRemaining(UUID ticketTypeId);
+
+    /**
+     * Cheap check for purchase paths to run before opening a transaction. True
+     * once the last ticket has been taken, until stock is handed back or the
+     * total is raised.
+     */
+    boolean isSoldOut(UUID ticketTypeId);
+
+    // Called when the database has no stock left even though the counter had some,
+    // e.g. because another node sold it
+    void markSoldOut(UUID ticketTypeId);
+
+    UUID getEventId(UUID ticketTypeId);
+
+    void reconcile();
+}
@@ -1,8 +1,24 @@
 package com.tutorial.ticket.services;
 
+import com.tutorial.ticket.domain.IdempotencyClaim;
+import com.tutorial.ticket.domain.PurchaseTicketsRequest;
 import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.User;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface TicketTypeService {
     Ticket purchaseTicket(UUID userId, UUID ticketTypeId);
+    // Same as purchaseTicket, but may be grouped with other purchases of the ticket type.
+    // A non-null claim is inserted in the purchase transaction and fails it with
+    // DuplicateIdempotencyKeyException if the key was already used.
+    CompletableFuture<Ticket> purchaseTicketAsync(UUID userId, UUID ticketTypeId, IdempotencyClaim idempotencyClaim);
+    List<Ticket> purchaseTickets(UUID userId, UUID eventId, PurchaseTicketsRequest request);
+
+    // Building blocks for flows that take stock before issuing tickets (e.g. holds).
+    // They must run inside the caller's transaction.
+    void reserveTickets(UUID ticketTypeId, int quantity);
+    void releaseTickets(UUID ticketTypeId, int quantity);
+    List<Ticket> issueTickets(User purchaser, UUID ticketTypeId, int quantity);
 }
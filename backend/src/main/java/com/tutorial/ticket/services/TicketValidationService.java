@@ -1,9 +1,15 @@
 package com.tutorial.ticket.services;
 
+import com.tutorial.ticket.domain.TicketScan;
+import com.tutorial.ticket.domain.TicketScanResult;
 import com.tutorial.ticket.domain.entities.TicketValidation;
+import java.util.List;
 import java.util.UUID;
 
 public interface TicketValidationService {
     TicketValidation validateTicketByQrCode(UUID qrCodeId);
+    TicketValidation validateTicketByQrPayload(String payload);
     TicketValidation validateTicketManually(UUID ticketId);
+    // Results are returned in the order of the given scans
+    List<TicketScanResult> validateTicketScans(List<TicketScan> scans);
 }
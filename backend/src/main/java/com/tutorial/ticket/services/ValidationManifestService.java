@@ -0,0 +1,36 @@
+package com.tutorial.ticket.services;
+
+import com.tutorial.ticket.domain.entities.TicketValidation;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ValidationManifestService {
+
+    /**
+     * Loads the QR codes and validation state of an event into memory so door
+     * scans can be decided without reading the database. Does nothing if the
+     * event is already loaded.
+     */
+    void loadManifest(UUID eventId);
+
+    void unloadManifest(UUID eventId);
+
+    boolean isLoaded(UUID eventId);
+
+    /**
+     * Decides a QR scan against the loaded manifests. The returned validation
+     * is written to the database asynchronously.
+     *
+     * @return empty if no loaded manifest knows the QR code, in which case the
+     * caller should fall back to the database
+     */
+    Optional<TicketValidation> validate(UUID qrCodeId, LocalDateTime scannedAt);
+
+    // Records a ticket the database path let in, so a loaded manifest will not let it in again
+    void markValidated(UUID eventId, UUID ticketId, LocalDateTime validatedAt);
+
+    // Rejects the ticket's QR codes in a loaded manifest, e.g. once the ticket is cancelled
+    void revokeTicket(UUID eventId, UUID ticketId);
+}
@@ -0,0 +1,297 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.AdmissionQueueStatus;
+import com.tutorial.ticket.exceptions.QueueAdmissionRequiredException;
+import com.tutorial.ticket.repositories.EventRepository;
+import com.tutorial.ticket.services.AdmissionQueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory waiting room for flash sales. Every user joining an event's queue
+ * gets a sequence number wrapped in an HMAC-signed token; the queue admits
+ * sequence numbers at a rate and purchase endpoints only accept admitted
+ * tokens. Joining and polling never touch the database.
+ *
+ * <p>The rate follows the purchases the event actually completes: every few
+ * seconds it is set to the smoothed purchase rate times a headroom factor,
+ * between the configured minimum and maximum. The minimum is also the
+ * starting rate, and keeps a queue whose admitted users do not all buy from
+ * throttling itself to nothing.
+ *
+ * <p>Queue state lives on the node that issued the token, so an event's queue
+ * and purchase requests must be routed to one node (e.g. by event ID); another
+ * node has no queue for the event and rejects the token.
+ *
+ * <p>A member is only remembered until admitted or until their token expires,
+ * and a queue is dropped once its event has ended or no token it issued can
+ * still be valid, so memory follows the people currently waiting.
+ */
+@Service
+@Slf4j
+public class AdmissionQueueServiceImpl implements AdmissionQueueService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = 16 + 16 + 8 + 8;
+    // Weight of the newest sample in the smoothed purchase rate
+    private static final double PURCHASE_RATE_SMOOTHING = 0.3;
+
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final double admissionsPerSecond;
+    private final double maxAdmissionsPerSecond;
+    private final double purchaseHeadroom;
+    private final long tokenTtlMillis;
+    private final SecretKeySpec signingKey;
+
+    private final Map<UUID, EventQueue> queues = new ConcurrentHashMap<>();
+
+    public AdmissionQueueServiceImpl(
+            EventRepository eventRepository,
+            @Value("${ticket.queue.enabled:false}") boolean enabled,
+            @Value("${ticket.queue.admissions-per-second:50}") double admissionsPerSecond,
+            @Value("${ticket.queue.max-admissions-per-second:500}") double maxAdmissionsPerSecond,
+            @Value("${ticket.queue.purchase-headroom:1.2}") double purchaseHeadroom,
+            @Value("${ticket.queue.token-ttl-ms:7200000}") long tokenTtlMillis,
+            @Value("${ticket.queue.secret:}") String secret
+    ) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.admissionsPerSecond = admissionsPerSecond;
+        this.maxAdmissionsPerSecond = Math.max(admissionsPerSecond, maxAdmissionsPerSecond);
+        this.purchaseHeadroom = purchaseHeadroom;
+        this.tokenTtlMillis = tokenTtlMillis;
+        this.signingKey = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+    }
+
+    @Override
+    public AdmissionQueueStatus join(UUID eventId, UUID userId) {
+        long now = System.currentTimeMillis();
+        // compute() keeps this atomic with the sweep dropping an idle queue
+        EventQueue queue = queues.compute(eventId, (id, existing) -> {
+            EventQueue eventQueue = existing != null ? existing : new EventQueue(admissionsPerSecond);
+            eventQueue.lastJoinMillis = now;
+            return eventQueue;
+        });
+
+        // Joining again keeps the original place in the queue while it is still waiting
+        Member member = queue.members.computeIfAbsent(userId, id -> new Member(queue.nextSequence(), now));
+        String token = sign(eventId, userId, member.sequence(), now);
+
+        return toStatus(queue, token, member.sequence());
+    }
+
+    // Admitted members keep their token; a member whose token expired has to join again anyway
+    @Scheduled(fixedDelayString = "${ticket.queue.sweep-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (EventQueue queue : queues.values()) {
+            long admittedUpTo = queue.admittedUpTo();
+            queue.members.values().removeIf(member ->
+                    member.sequence() <= admittedUpTo || now - member.joinedAtMillis() > tokenTtlMillis
+            );
+        }
+
+        for (UUID eventId : queues.keySet()) {
+            queues.computeIfPresent(eventId, (id, queue) ->
+                    queue.members.isEmpty() && now - queue.lastJoinMillis > tokenTtlMillis ? null : queue
+            );
+        }
+
+        if (!queues.isEmpty()) {
+            List<UUID> endedEventIds = eventRepository.findEndedEventIds(queues.keySet(), LocalDateTime.now());
+            endedEventIds.forEach(queues::remove);
+            if (!endedEventIds.isEmpty()) {
+                log.info("Dropped waiting rooms of {} ended events", endedEventIds.size());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.queue.rate-adjust-ms:5000}")
+    public void adjustAdmissionRates() {
+        for (EventQueue queue : queues.values()) {
+            queue.adjustRate(admissionsPerSecond, maxAdmissionsPerSecond, purchaseHeadroom);
+        }
+    }
+
+    @Override
+    public AdmissionQueueStatus getStatus(UUID eventId, UUID userId, String token) {
+        long sequence = verify(eventId, userId, token);
+        EventQueue queue = queues.get(eventId);
+        if (queue == null) {
+            throw new QueueAdmissionRequiredException("Queue token is not valid for this event");
+        }
+
+        return toStatus(queue, token, sequence);
+    }
+
+    @Override
+    public void checkAdmitted(UUID eventId, UUID userId, String token) {
+        if (!enabled) {
+            return;
+        }
+
+        if (token == null || token.isBlank()) {
+            throw new QueueAdmissionRequiredException("A waiting room token is required for this event");
+        }
+
+        long sequence = verify(eventId, userId, token);
+        EventQueue queue = queues.get(eventId);
+        if (queue == null || sequence > queue.admittedUpTo()) {
+            throw new QueueAdmissionRequiredException("Waiting room token has not been admitted yet");
+        }
+    }
+
+    @Override
+    public void recordPurchase(UUID eventId) {
+        EventQueue queue = queues.get(eventId);
+        if (queue != null) {
+            queue.purchases.increment();
+        }
+    }
+
+    private AdmissionQueueStatus toStatus(EventQueue queue, String token, long sequence) {
+        long admittedUpTo = queue.admittedUpTo();
+        boolean admitted = !enabled || sequence <= admittedUpTo;
+        long position = admitted ? 0 : sequence - admittedUpTo;
+        return new AdmissionQueueStatus(token, position, admitted);
+    }
+
+    private String sign(UUID eventId, UUID userId, long sequence, long issuedAt) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putLong(eventId.getMostSignificantBits())
+                .putLong(eventId.getLeastSignificantBits())
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putLong(sequence)
+                .putLong(issuedAt);
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload.array()) + "." + encoder.encodeToString(hmac(payload.array()));
+    }
+
+    // Returns the sequence number carried by a valid token for this event and user
+    private long verify(UUID eventId, UUID userId, String token) {
+        int separator = token.indexOf('.');
+        if (separator < 0) {
+            throw new QueueAdmissionRequiredException("Malformed waiting room token");
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(0, separator));
+            signature = decoder.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new QueueAdmissionRequiredException("Malformed waiting room token", ex);
+        }
+
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(hmac(payload), signature)) {
+            throw new QueueAdmissionRequiredException("Invalid waiting room token");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        UUID tokenEventId = new UUID(buffer.getLong(), buffer.getLong());
+        UUID tokenUserId = new UUID(buffer.getLong(), buffer.getLong());
+        long sequence = buffer.getLong();
+        long issuedAt = buffer.getLong();
+
+        if (!tokenEventId.equals(eventId) || !tokenUserId.equals(userId)) {
+            throw new QueueAdmissionRequiredException("Waiting room token belongs to another event or user");
+        }
+        if (System.currentTimeMillis() - issuedAt > tokenTtlMillis) {
+            throw new QueueAdmissionRequiredException("Waiting room token has expired");
+        }
+
+        return sequence;
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", ex);
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Only the issuing node can admit a token, so a per-node key loses nothing
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    private static final class EventQueue {
+
+        private final Map<UUID, Member> members = new ConcurrentHashMap<>();
+        private final LongAdder purchases = new LongAdder();
+        private volatile long lastJoinMillis;
+        private long lastSequence;
+        private double admitted;
+        private double admissionsPerSecond;
+        private double purchasesPerSecond = -1;
+        private long lastRefillNanos = System.nanoTime();
+        private long lastAdjustNanos = lastRefillNanos;
+
+        private EventQueue(double admissionsPerSecond) {
+            this.admissionsPerSecond = admissionsPerSecond;
+        }
+
+        private synchronized long nextSequence() {
+            return ++lastSequence;
+        }
+
+        // Admission grows with elapsed time but never runs ahead of the queue, so
+        // an idle queue does not bank admissions for a later burst.
+        private synchronized long admittedUpTo() {
+            long now = System.nanoTime();
+            admitted = Math.min(lastSequence, admitted + (now - lastRefillNanos) / 1_000_000_000.0 * admissionsPerSecond);
+            lastRefillNanos = now;
+            return (long) admitted;
+        }
+
+        private synchronized void adjustRate(double minRate, double maxRate, double headroom) {
+            long now = System.nanoTime();
+            double seconds = (now - lastAdjustNanos) / 1_000_000_000.0;
+            if (seconds <= 0) {
+                return;
+            }
+            // Time up to now is admitted at the old rate
+            admittedUpTo();
+
+            double sample = purchases.sumThenReset() / seconds;
+            purchasesPerSecond = purchasesPerSecond < 0
+                    ? sample
+                    : purchasesPerSecond + PURCHASE_RATE_SMOOTHING * (sample - purchasesPerSecond);
+            admissionsPerSecond = Math.min(maxRate, Math.max(minRate, purchasesPerSecond * headroom));
+            lastAdjustNanos = now;
+        }
+    }
+
+    private record Member(long sequence, long joinedAtMillis) {
+    }
+}
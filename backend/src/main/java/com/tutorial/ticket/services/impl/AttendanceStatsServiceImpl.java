@@ -0,0 +1,210 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.AttendanceStats;
+import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import com.tutorial.ticket.repositories.TicketRepository;
+import com.tutorial.ticket.services.AttendanceStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live attendance per event from in-memory counters. Scans bump striped
+ * counters on the scanning thread; once per interval a single snapshot per
+ * watched event is computed and sent to all of its subscribers, so dashboards
+ * cost no queries however many are open. The entered count is read from the
+ * database every few seconds while an event is watched, so admissions on other
+ * nodes show up, plus the VALID scans this node decided since that read; the
+ * scan counters cover scans decided on this node. Counters of an event that is
+ * neither watched nor scanned for a while are dropped.
+ */
+@Service
+@Slf4j
+public class AttendanceStatsServiceImpl implements AttendanceStatsService {
+
+    private static final String EVENT_NAME = "attendance";
+
+    private final TicketRepository ticketRepository;
+    private final long emitterTimeoutMillis;
+    private final long enteredRefreshNanos;
+    private final long idleEvictionNanos;
+
+    private final Map<UUID, EventCounters> counters = new ConcurrentHashMap<>();
+
+    public AttendanceStatsServiceImpl(
+            TicketRepository ticketRepository,
+            @Value("${ticket.attendance.stats.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+            @Value("${ticket.attendance.stats.entered-refresh-ms:10000}") long enteredRefreshMillis,
+            @Value("${ticket.attendance.stats.idle-eviction-ms:600000}") long idleEvictionMillis
+    ) {
+        this.ticketRepository = ticketRepository;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.enteredRefreshNanos = TimeUnit.MILLISECONDS.toNanos(enteredRefreshMillis);
+        this.idleEvictionNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+    }
+
+    @Override
+    public void recordScan(UUID eventId, TicketValidationMethod method, TicketValidationStatusEnum status) {
+        EventCounters eventCounters = counters.get(eventId);
+        if (eventCounters == null) {
+            eventCounters = counters.computeIfAbsent(eventId, id -> new EventCounters());
+        }
+        eventCounters.scans.increment();
+        eventCounters.scansByMethod.get(method).increment();
+        if (status == TicketValidationStatusEnum.VALID) {
+            eventCounters.entered.increment();
+        } else {
+            eventCounters.invalidScans.increment();
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(UUID eventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        // Added under the map's lock, so an eviction cannot drop the counters from under it
+        EventCounters eventCounters = counters.compute(eventId, (id, existing) -> {
+            EventCounters subscribed = existing != null ? existing : new EventCounters();
+            subscribed.subscribers.add(emitter);
+            return subscribed;
+        });
+        emitter.onCompletion(() -> eventCounters.subscribers.remove(emitter));
+        emitter.onTimeout(() -> eventCounters.subscribers.remove(emitter));
+        emitter.onError(ex -> eventCounters.subscribers.remove(emitter));
+
+        AttendanceStats latest = eventCounters.latest;
+        if (latest != null) {
+            send(eventCounters, emitter, latest);
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${ticket.attendance.stats.interval-ms:1000}")
+    public void publish() {
+        long now = System.nanoTime();
+        for (Map.Entry<UUID, EventCounters> entry : counters.entrySet()) {
+            EventCounters eventCounters = entry.getValue();
+            if (eventCounters.subscribers.isEmpty()) {
+                evictIfIdle(entry.getKey(), eventCounters, now);
+                continue;
+            }
+
+            eventCounters.lastActiveNanos = now;
+            if (!eventCounters.enteredLoaded || now - eventCounters.enteredRefreshedNanos >= enteredRefreshNanos) {
+                refreshEntered(entry.getKey(), eventCounters, now);
+            }
+
+            AttendanceStats stats = eventCounters.snapshot(entry.getKey(), now);
+            eventCounters.latest = stats;
+            for (SseEmitter emitter : eventCounters.subscribers) {
+                send(eventCounters, emitter, stats);
+            }
+        }
+    }
+
+    // One count per watched event and interval, not per scan or subscriber
+    private void refreshEntered(UUID eventId, EventCounters eventCounters, long now) {
+        // Only this node's scans after the count are added on top of it. One that is
+        // still being written when the count runs shows up at the next refresh.
+        long localEntered = eventCounters.entered.sum();
+        try {
+            long persisted = ticketRepository.countByTicketTypeEventIdAndFirstValidatedAtIsNotNull(eventId);
+            eventCounters.enteredBase = persisted - localEntered;
+            eventCounters.enteredLoaded = true;
+            eventCounters.enteredRefreshedNanos = now;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to refresh the entered count for event {}", eventId, ex);
+        }
+    }
+
+    private void evictIfIdle(UUID eventId, EventCounters eventCounters, long now) {
+        long totalScans = eventCounters.scans.sum();
+        if (totalScans != eventCounters.scansSeen) {
+            eventCounters.scansSeen = totalScans;
+            eventCounters.lastActiveNanos = now;
+            return;
+        }
+        if (now - eventCounters.lastActiveNanos >= idleEvictionNanos) {
+            counters.computeIfPresent(eventId, (id, current) ->
+                    current == eventCounters && current.subscribers.isEmpty() ? null : current);
+        }
+    }
+
+    private void send(EventCounters eventCounters, SseEmitter emitter, AttendanceStats stats) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(stats, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping attendance subscriber", ex);
+            eventCounters.subscribers.remove(emitter);
+        }
+    }
+
+    private static final class EventCounters {
+
+        private final LongAdder entered = new LongAdder();
+        private final LongAdder scans = new LongAdder();
+        private final LongAdder invalidScans = new LongAdder();
+        private final Map<TicketValidationMethod, LongAdder> scansByMethod = new EnumMap<>(TicketValidationMethod.class);
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+        private volatile AttendanceStats latest;
+
+        // Only touched by the publishing thread
+        private long enteredBase;
+        private boolean enteredLoaded;
+        private long enteredRefreshedNanos;
+        private long lastScans;
+        private long lastInvalidScans;
+        private long lastPublishedNanos;
+        private long scansSeen;
+        private long lastActiveNanos;
+
+        private EventCounters() {
+            for (TicketValidationMethod method : TicketValidationMethod.values()) {
+                scansByMethod.put(method, new LongAdder());
+            }
+            this.lastPublishedNanos = System.nanoTime();
+            this.lastActiveNanos = lastPublishedNanos;
+        }
+
+        private AttendanceStats snapshot(UUID eventId, long nowNanos) {
+            long totalScans = scans.sum();
+            long totalInvalid = invalidScans.sum();
+            long intervalScans = totalScans - lastScans;
+            long intervalInvalid = totalInvalid - lastInvalidScans;
+            double seconds = Math.max(1, nowNanos - lastPublishedNanos) / 1_000_000_000.0;
+
+            lastScans = totalScans;
+            lastInvalidScans = totalInvalid;
+            lastPublishedNanos = nowNanos;
+
+            Map<TicketValidationMethod, Long> byMethod = new EnumMap<>(TicketValidationMethod.class);
+            scansByMethod.forEach((method, count) -> byMethod.put(method, count.sum()));
+
+            return new AttendanceStats(
+                    eventId,
+                    LocalDateTime.now(),
+                    enteredBase + entered.sum(),
+                    totalScans,
+                    totalInvalid,
+                    intervalScans / seconds,
+                    intervalScans == 0 ? 0 : (double) intervalInvalid / intervalScans,
+                    byMethod
+            );
+        }
+    }
+}
@@ -90,6 +90,14 @@ public class EventServiceImpl implements EventService {
         return event;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void checkOrganizerOrStaff(UUID userId, UUID eventId) {
+        if (!eventRepository.isOrganizerOrStaff(eventId, userId)) {
+            throw new IllegalArgumentException("Not allowed to access this event");
+        }
+    }
+
     // ----------------------------
     // Public (published)
     // ----------------------------
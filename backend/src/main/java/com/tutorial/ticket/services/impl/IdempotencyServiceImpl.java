@@ -0,0 +1,227 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.IdempotencyClaim;
+import com.tutorial.ticket.exceptions.DuplicateIdempotencyKeyException;
+import com.tutorial.ticket.exceptions.IdempotencyKeyReusedException;
+import com.tutorial.ticket.exceptions.InvalidIdempotencyKeyException;
+import com.tutorial.ticket.repositories.IdempotencyKeyRepository;
+import com.tutorial.ticket.services.IdempotencyService;
+import com.tutorial.ticket.util.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates purchase retries by Idempotency-Key. The purchase transaction
+ * inserts the key before it takes any stock, so the unique constraint on
+ * (user_id, idempotency_key) decides which request buys, on any node and
+ * across crashes; the loser answers with the winner's ticket. Completed keys
+ * are also kept in a bounded LRU cache, and a retry that arrives on this node
+ * while the original is still running waits for the same future. A failed
+ * purchase rolls its key back, so the request can be retried with the same key.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_keys (id, user_id, idempotency_key, ticket_type_id, quantity, created_at) VALUES ";
+    private static final String CLAIM_ROW = "(?, ?, ?, ?, ?, ?)";
+    private static final String CLAIM_CONFLICT_SQL = " ON CONFLICT (user_id, idempotency_key) DO NOTHING RETURNING id";
+    private static final String RECORD_SQL = "UPDATE idempotency_keys SET ticket_id = ? WHERE id = ?";
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys WHERE id = ?";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+
+    private final Map<String, StoredPurchase> completedKeys;
+    private final Map<String, InFlightPurchase> inFlightKeys = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${ticket.idempotency.cache-size:100000}") int cacheSize,
+            @Value("${ticket.idempotency.retention-ms:86400000}") long retentionMillis
+    ) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.completedKeys = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredPurchase> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<UUID> execute(IdempotencyClaim claim, Supplier<CompletableFuture<UUID>> purchase) {
+        String idempotencyKey = claim.getKey();
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    String.format("Idempotency key must be between 1 and %d characters", MAX_KEY_LENGTH)
+            );
+        }
+
+        String cacheKey = claim.getUserId() + ":" + idempotencyKey;
+        StoredPurchase cached = completedKeys.get(cacheKey);
+        if (cached != null) {
+            checkSamePurchase(claim.getTicketTypeId(), claim.getQuantity(), cached.ticketTypeId(), cached.quantity());
+            return CompletableFuture.completedFuture(cached.ticketId());
+        }
+
+        InFlightPurchase entry = new InFlightPurchase(claim.getTicketTypeId(), claim.getQuantity(), new CompletableFuture<>());
+        InFlightPurchase inFlight = inFlightKeys.putIfAbsent(cacheKey, entry);
+        if (inFlight != null) {
+            checkSamePurchase(claim.getTicketTypeId(), claim.getQuantity(), inFlight.ticketTypeId(), inFlight.quantity());
+            return inFlight.result();
+        }
+
+        try {
+            Optional<StoredPurchase> stored = findStored(claim);
+            if (stored.isPresent()) {
+                complete(cacheKey, entry, stored.get());
+                return entry.result();
+            }
+
+            CompletableFuture<UUID> attempt;
+            try {
+                attempt = purchase.get();
+            } catch (RuntimeException ex) {
+                attempt = CompletableFuture.failedFuture(ex);
+            }
+
+            attempt.whenComplete((ticketId, ex) -> {
+                if (ex == null) {
+                    complete(cacheKey, entry, new StoredPurchase(claim.getTicketTypeId(), claim.getQuantity(), ticketId));
+                    return;
+                }
+
+                Throwable cause = unwrap(ex);
+                if (cause instanceof DuplicateIdempotencyKeyException) {
+                    // Another request with this key committed first; answer with its ticket
+                    try {
+                        Optional<StoredPurchase> winner = findStored(claim);
+                        if (winner.isPresent()) {
+                            complete(cacheKey, entry, winner.get());
+                            return;
+                        }
+                    } catch (RuntimeException lookupEx) {
+                        cause = lookupEx;
+                    }
+                }
+
+                inFlightKeys.remove(cacheKey, entry);
+                entry.result().completeExceptionally(cause);
+            });
+        } catch (RuntimeException ex) {
+            inFlightKeys.remove(cacheKey, entry);
+            entry.result().completeExceptionally(ex);
+        }
+
+        return entry.result();
+    }
+
+    @Override
+    public Set<UUID> claim(List<IdempotencyClaim> claims) {
+        // Same order in every transaction, so two batches waiting on each other's keys cannot deadlock
+        List<IdempotencyClaim> ordered = claims.stream()
+                .sorted(Comparator.comparing(IdempotencyClaim::getUserId).thenComparing(IdempotencyClaim::getKey))
+                .toList();
+
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder sql = new StringBuilder(CLAIM_SQL);
+        List<Object> args = new ArrayList<>(ordered.size() * 6);
+        for (IdempotencyClaim claim : ordered) {
+            claim.setId(UuidV7.generate());
+            sql.append(args.isEmpty() ? CLAIM_ROW : ", " + CLAIM_ROW);
+            args.add(claim.getId());
+            args.add(claim.getUserId());
+            args.add(claim.getKey());
+            args.add(claim.getTicketTypeId());
+            args.add(claim.getQuantity());
+            args.add(now);
+        }
+        sql.append(CLAIM_CONFLICT_SQL);
+
+        // A key held by an open transaction blocks here until that one commits or rolls back
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), UUID.class, args.toArray()));
+    }
+
+    @Override
+    public void release(List<IdempotencyClaim> claims) {
+        jdbcTemplate.batchUpdate(RELEASE_SQL, claims, claims.size(),
+                (statement, claim) -> statement.setObject(1, claim.getId()));
+    }
+
+    @Override
+    public void recordTickets(List<IdempotencyClaim> claims) {
+        jdbcTemplate.batchUpdate(RECORD_SQL, claims, claims.size(), (statement, claim) -> {
+            statement.setObject(1, claim.getTicketId());
+            statement.setObject(2, claim.getId());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        int purged = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Optional<StoredPurchase> findStored(IdempotencyClaim claim) {
+        return idempotencyKeyRepository.findByUserIdAndKey(claim.getUserId(), claim.getKey())
+                .filter(key -> key.getTicketId() != null)
+                .map(key -> new StoredPurchase(key.getTicketTypeId(), key.getQuantity(), key.getTicketId()));
+    }
+
+    private void complete(String cacheKey, InFlightPurchase entry, StoredPurchase stored) {
+        completedKeys.put(cacheKey, stored);
+        inFlightKeys.remove(cacheKey, entry);
+        try {
+            checkSamePurchase(entry.ticketTypeId(), entry.quantity(), stored.ticketTypeId(), stored.quantity());
+            entry.result().complete(stored.ticketId());
+        } catch (IdempotencyKeyReusedException ex) {
+            entry.result().completeExceptionally(ex);
+        }
+    }
+
+    private static void checkSamePurchase(UUID ticketTypeId, int quantity, UUID usedTicketTypeId, int usedQuantity) {
+        if (!ticketTypeId.equals(usedTicketTypeId) || quantity != usedQuantity) {
+            throw new IdempotencyKeyReusedException("Idempotency key was already used for a different purchase");
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private record StoredPurchase(UUID ticketTypeId, int quantity, UUID ticketId) {
+    }
+
+    private record InFlightPurchase(UUID ticketTypeId, int quantity, CompletableFuture<UUID> result) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.dtos.GetPublishedEventDetailsResponseDto;
+import com.tutorial.ticket.domain.dtos.ListPublishedEventResponseDto;
+import com.tutorial.ticket.mappers.EventMapper;
+import com.tutorial.ticket.services.EventService;
+import com.tutorial.ticket.services.PublishedEventCatalogService;
+import com.tutorial.ticket.util.WeightedLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the public catalog. Pages and event details are cached
+ * as the mapped response DTOs, so a hit touches neither Postgres nor a lazy
+ * collection. Changes to an event or its ticket types evict after commit (see
+ * {@link com.tutorial.ticket.domain.listeners.PublishedEventCacheListener}); the TTL only bounds how long a change
+ * made on another node can stay invisible here.
+ *
+ * <p>Both caches are LRUs bounded by entry count. Expired entries are reloaded
+ * when they are next read and otherwise age out as the least recently used, so
+ * probing random IDs or page sizes only churns the cache and never fills it.
+ *
+ * <p>Every eviction bumps a generation. A load that overlaps an eviction is
+ * still returned but is not kept, so a page read before a commit can never be
+ * cached after it.
+ */
+@Service
+public class PublishedEventCatalogServiceImpl implements PublishedEventCatalogService {
+
+    private final EventService eventService;
+    private final EventMapper eventMapper;
+    private final TransactionTemplate readTransactionTemplate;
+    private final long ttlNanos;
+
+    private final WeightedLruCache<Pageable, CachedValue<Page<ListPublishedEventResponseDto>>> pages;
+    private final WeightedLruCache<UUID, CachedValue<Optional<GetPublishedEventDetailsResponseDto>>> events;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter pageHits;
+    private final Counter pageMisses;
+    private final Counter eventHits;
+    private final Counter eventMisses;
+    private final Counter evictions;
+
+    public PublishedEventCatalogServiceImpl(
+            EventService eventService,
+            EventMapper eventMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ticket.catalog.cache.ttl-ms:300000}") long ttlMillis,
+            @Value("${ticket.catalog.cache.max-pages:1000}") int maxPages,
+            @Value("${ticket.catalog.cache.max-events:10000}") int maxEvents
+    ) {
+        this.eventService = eventService;
+        this.eventMapper = eventMapper;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.pages = new WeightedLruCache<>(maxPages, page -> 1);
+        this.events = new WeightedLruCache<>(maxEvents, event -> 1);
+
+        // Ticket types are mapped inside the transaction, not through open-in-view
+        this.readTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransactionTemplate.setReadOnly(true);
+
+        this.pageHits = cacheCounter(meterRegistry, "pages", "hit");
+        this.pageMisses = cacheCounter(meterRegistry, "pages", "miss");
+        this.eventHits = cacheCounter(meterRegistry, "events", "hit");
+        this.eventMisses = cacheCounter(meterRegistry, "events", "miss");
+        this.evictions = Counter.builder("published.events.cache.evictions")
+                .description("Published event cache evictions")
+                .register(meterRegistry);
+        Gauge.builder("published.events.cache.size", pages, WeightedLruCache::weight)
+                .tag("cache", "pages")
+                .register(meterRegistry);
+        Gauge.builder("published.events.cache.size", events, WeightedLruCache::weight)
+                .tag("cache", "events")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Page<ListPublishedEventResponseDto> listPublishedEvents(Pageable pageable) {
+        return readThrough(pages, pageable, pageHits, pageMisses, () ->
+                eventService.listPublishedEvents(pageable).map(eventMapper::toListPublishedEventResponseDto)
+        );
+    }
+
+    // Unknown and unpublished events are cached as empty too; the LRU bound keeps probes from growing the cache
+    @Override
+    public Optional<GetPublishedEventDetailsResponseDto> getPublishedEvent(UUID eventId) {
+        return readThrough(events, eventId, eventHits, eventMisses, () ->
+                eventService.getPublishedEvent(eventId).map(eventMapper::toGetPublishedEventDetailsResponseDto)
+        );
+    }
+
+    @Override
+    public void evictEvent(UUID eventId) {
+        generation.incrementAndGet();
+        events.invalidate(eventId);
+        // Any page may have gained, lost or reordered the event
+        pages.clear();
+        evictions.increment();
+    }
+
+    private <K, V> V readThrough(WeightedLruCache<K, CachedValue<V>> cache,
+                                 K key,
+                                 Counter hits,
+                                 Counter misses,
+                                 Supplier<V> loader) {
+        long now = System.nanoTime();
+        CachedValue<V> cached = cache.get(key);
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            hits.increment();
+            return cached.value;
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        V value = readTransactionTemplate.execute(status -> loader.get());
+
+        CachedValue<V> loaded = new CachedValue<>(value, now);
+        cache.put(key, loaded);
+        // An eviction may have slipped in between loading and putting
+        if (generation.get() != loadGeneration) {
+            cache.invalidate(key, loaded);
+        }
+        return value;
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String cache, String result) {
+        return Counter.builder("published.events.cache.requests")
+                .description("Published event cache lookups")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record CachedValue<V>(V value, long loadedAt) {
+    }
+}
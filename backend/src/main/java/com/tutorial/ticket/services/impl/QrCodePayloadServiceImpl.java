@@ -0,0 +1,244 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.QrCodeTicketReference;
+import com.tutorial.ticket.domain.RevokedTicket;
+import com.tutorial.ticket.domain.SignedQrCodePayload;
+import com.tutorial.ticket.exceptions.InvalidQrCodePayloadException;
+import com.tutorial.ticket.repositories.QrCodeRepository;
+import com.tutorial.ticket.repositories.TicketRepository;
+import com.tutorial.ticket.services.QrCodePayloadService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Self-validating QR payloads: ticket, QR code and event IDs plus an expiry,
+ * signed with HMAC-SHA256 so a scanner node can check authenticity without
+ * reading qr_codes or tickets. Payloads name the key they were signed with, so
+ * keys can be rotated by adding a new one, making it active and removing the
+ * old one once its codes have expired. Cancelled tickets and expired QR codes
+ * are kept in a per-event revocation list. Each refresh only reads rows changed
+ * since the previous one; a periodic full reload catches anything missed and
+ * drops events whose payloads have expired anyway.
+ */
+@Service
+public class QrCodePayloadServiceImpl implements QrCodePayloadService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "TQ1.";
+    private static final byte VERSION = 1;
+    private static final int BODY_LENGTH = 1 + 1 + 16 + 16 + 16 + 8;
+    private static final int TAG_LENGTH = 16;
+    private static final LocalDateTime FULL_REFRESH_SINCE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    // Rows whose updatedAt is older than the previous refresh but that committed after it
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final QrCodeRepository qrCodeRepository;
+    private final TicketRepository ticketRepository;
+    private final boolean signingEnabled;
+    private final Map<Integer, SecretKeySpec> keys;
+    private final int activeKeyId;
+    private final Duration validityAfterEvent;
+    private final Duration defaultValidity;
+    private final Duration fullRefreshInterval;
+
+    private volatile Map<UUID, Set<UUID>> revokedTickets = new ConcurrentHashMap<>();
+    private LocalDateTime lastRefreshStartedAt;
+    private LocalDateTime lastFullRefreshStartedAt;
+
+    public QrCodePayloadServiceImpl(
+            QrCodeRepository qrCodeRepository,
+            TicketRepository ticketRepository,
+            @Value("${ticket.qr.signing.enabled:false}") boolean signingEnabled,
+            @Value("${ticket.qr.signing.keys:}") String keys,
+            @Value("${ticket.qr.signing.active-key-id:1}") int activeKeyId,
+            @Value("${ticket.qr.signing.validity-after-event-ms:86400000}") long validityAfterEventMillis,
+            @Value("${ticket.qr.signing.default-validity-ms:31536000000}") long defaultValidityMillis,
+            @Value("${ticket.qr.revocation.full-refresh-ms:3600000}") long fullRefreshMillis
+    ) {
+        this.qrCodeRepository = qrCodeRepository;
+        this.ticketRepository = ticketRepository;
+        this.signingEnabled = signingEnabled;
+        this.keys = parseKeys(keys, activeKeyId, signingEnabled);
+        this.activeKeyId = activeKeyId;
+        this.validityAfterEvent = Duration.ofMillis(validityAfterEventMillis);
+        this.defaultValidity = Duration.ofMillis(defaultValidityMillis);
+        this.fullRefreshInterval = Duration.ofMillis(fullRefreshMillis);
+    }
+
+    @Override
+    public boolean isSigningEnabled() {
+        return signingEnabled;
+    }
+
+    @Override
+    public int getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    @Override
+    public String createPayload(QrCodeTicketReference reference) {
+        // Derived from stored times only, so every render of a QR code is the same image
+        Instant expiresAt = reference.getEventEnd() != null
+                ? reference.getEventEnd().atZone(ZoneId.systemDefault()).toInstant().plus(validityAfterEvent)
+                : reference.getQrCodeCreatedAt().atZone(ZoneId.systemDefault()).toInstant().plus(defaultValidity);
+
+        ByteBuffer body = ByteBuffer.allocate(BODY_LENGTH + TAG_LENGTH)
+                .put(VERSION)
+                .put((byte) activeKeyId);
+        putUuid(body, reference.getQrCodeId());
+        putUuid(body, reference.getTicketId());
+        putUuid(body, reference.getEventId());
+        body.putLong(expiresAt.getEpochSecond());
+        body.put(tag(keys.get(activeKeyId), body.array()));
+
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(body.array());
+    }
+
+    @Override
+    public Optional<SignedQrCodePayload> parse(String payload) {
+        if (payload == null || !payload.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(payload.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidQrCodePayloadException("Malformed QR code payload", ex);
+        }
+        if (bytes.length != BODY_LENGTH + TAG_LENGTH || bytes[0] != VERSION) {
+            throw new InvalidQrCodePayloadException("Malformed QR code payload");
+        }
+
+        int keyId = bytes[1] & 0xFF;
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            throw new InvalidQrCodePayloadException(String.format("QR code was signed with unknown key %d", keyId));
+        }
+
+        byte[] expectedTag = tag(key, bytes);
+        byte[] actualTag = Arrays.copyOfRange(bytes, BODY_LENGTH, BODY_LENGTH + TAG_LENGTH);
+        if (!MessageDigest.isEqual(expectedTag, actualTag)) {
+            throw new InvalidQrCodePayloadException("QR code signature is not valid");
+        }
+
+        ByteBuffer body = ByteBuffer.wrap(bytes, 2, BODY_LENGTH - 2);
+        UUID qrCodeId = new UUID(body.getLong(), body.getLong());
+        UUID ticketId = new UUID(body.getLong(), body.getLong());
+        UUID eventId = new UUID(body.getLong(), body.getLong());
+        Instant expiresAt = Instant.ofEpochSecond(body.getLong());
+
+        return Optional.of(new SignedQrCodePayload(keyId, qrCodeId, ticketId, eventId, expiresAt));
+    }
+
+    @Override
+    public boolean isRevoked(UUID eventId, UUID ticketId) {
+        Set<UUID> revoked = revokedTickets.get(eventId);
+        return revoked != null && revoked.contains(ticketId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${ticket.qr.revocation.refresh-ms:30000}",
+            fixedDelayString = "${ticket.qr.revocation.refresh-ms:30000}"
+    )
+    public synchronized void refreshRevocations() {
+        if (!signingEnabled) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        boolean full = lastFullRefreshStartedAt == null
+                || !startedAt.isBefore(lastFullRefreshStartedAt.plus(fullRefreshInterval));
+        LocalDateTime since = full ? FULL_REFRESH_SINCE : lastRefreshStartedAt.minus(REFRESH_OVERLAP);
+        // Payloads of events that ended longer ago than this are rejected as expired
+        LocalDateTime endedAfter = startedAt.minus(validityAfterEvent);
+
+        List<RevokedTicket> cancelled = ticketRepository.findCancelledTickets(endedAfter, since);
+        List<RevokedTicket> expired = qrCodeRepository.findExpiredQrCodeTickets(endedAfter, since);
+
+        Map<UUID, Set<UUID>> refreshed = full ? new ConcurrentHashMap<>() : revokedTickets;
+        for (List<RevokedTicket> source : List.of(cancelled, expired)) {
+            for (RevokedTicket revokedTicket : source) {
+                refreshed.computeIfAbsent(revokedTicket.getEventId(), id -> ConcurrentHashMap.newKeySet())
+                        .add(revokedTicket.getTicketId());
+            }
+        }
+
+        if (full) {
+            revokedTickets = refreshed;
+            lastFullRefreshStartedAt = startedAt;
+        }
+        lastRefreshStartedAt = startedAt;
+    }
+
+    // Covers the version, key ID and body, truncated to 128 bits to keep the QR code small
+    private byte[] tag(SecretKeySpec key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(payload, 0, BODY_LENGTH);
+            return Arrays.copyOf(mac.doFinal(), TAG_LENGTH);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", ex);
+        }
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    // Keys are configured as "id:secret,id:secret" with ids from 0 to 255
+    private static Map<Integer, SecretKeySpec> parseKeys(String keys, int activeKeyId, boolean signingEnabled) {
+        if (activeKeyId < 0 || activeKeyId > 255) {
+            throw new IllegalArgumentException("ticket.qr.signing.active-key-id must be between 0 and 255");
+        }
+
+        Map<Integer, SecretKeySpec> parsed = new HashMap<>();
+        if (keys != null && !keys.isBlank()) {
+            for (String entry : keys.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("ticket.qr.signing.keys entries must look like id:secret");
+                }
+                int keyId = Integer.parseInt(entry.substring(0, separator).trim());
+                if (keyId < 0 || keyId > 255) {
+                    throw new IllegalArgumentException("ticket.qr.signing.keys ids must be between 0 and 255");
+                }
+                byte[] secret = entry.substring(separator + 1).trim().getBytes(StandardCharsets.UTF_8);
+                parsed.put(keyId, new SecretKeySpec(secret, HMAC_ALGORITHM));
+            }
+        }
+
+        // A key made up on this node would not verify on any other, or after a restart
+        if (signingEnabled && !parsed.containsKey(activeKeyId)) {
+            throw new IllegalStateException(String.format(
+                    "ticket.qr.signing.keys has no key with the active id %d", activeKeyId
+            ));
+        }
+        return parsed;
+    }
+}
@@ -1,87 +1,216 @@
 package com.tutorial.ticket.services.impl;
 
+import com.tutorial.ticket.domain.QrCodeImageFormat;
+import com.tutorial.ticket.domain.QrCodeTicketReference;
 import com.tutorial.ticket.domain.entities.QrCode;
 import com.tutorial.ticket.domain.entities.QrCodeStatusEnum;
 import com.tutorial.ticket.domain.entities.Ticket;
 import com.tutorial.ticket.exceptions.QrCodeGenerationException;
 import com.tutorial.ticket.exceptions.QrCodeNotFoundException;
 import com.tutorial.ticket.repositories.QrCodeRepository;
+import com.tutorial.ticket.services.QrCodePayloadService;
 import com.tutorial.ticket.services.QrCodeService;
+import com.tutorial.ticket.util.QrCodeImageEncoder;
+import com.tutorial.ticket.util.WeightedLruCache;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Base64;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import javax.imageio.ImageIO;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * QR codes are stored as their payload only (the QR code ID); the PNG is
+ * rendered when a ticket holder asks for it. Recently served images are kept
+ * in an LRU cache bounded by bytes, which absorbs repeat fetches at the gate.
+ */
 @Service
-@RequiredArgsConstructor
-@Slf4j
 public class QrCodeServiceImpl implements QrCodeService {
 
-    private static final int QR_HEIGHT = 300;
-    private static final int QR_WIDTH = 300;
+    private static final int EXPORT_CHUNK_SIZE = 256;
+    private static final UUID FIRST_QR_CODE_ID = new UUID(0, 0);
 
     private final QRCodeWriter qrCodeWriter;
     private final QrCodeRepository qrCodeRepository;
+    private final QrCodePayloadService qrCodePayloadService;
+    private final TransactionTemplate exportTransactionTemplate;
+    private final ExecutorService exportRenderExecutor;
+    private final WeightedLruCache<ImageKey, byte[]> imageCache;
+
+    public QrCodeServiceImpl(
+            QRCodeWriter qrCodeWriter,
+            QrCodeRepository qrCodeRepository,
+            QrCodePayloadService qrCodePayloadService,
+            PlatformTransactionManager transactionManager,
+            @Value("${ticket.qr.cache.max-bytes:67108864}") long cacheMaxBytes,
+            @Value("${ticket.qr.export.render-threads:4}") int exportRenderThreads
+    ) {
+        this.qrCodeWriter = qrCodeWriter;
+        this.qrCodeRepository = qrCodeRepository;
+        this.qrCodePayloadService = qrCodePayloadService;
+        this.exportTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.exportTransactionTemplate.setReadOnly(true);
+        // A full queue makes the exporting thread render itself, which slows the export rather than growing memory
+        this.exportRenderExecutor = new ThreadPoolExecutor(
+                exportRenderThreads, exportRenderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPORT_CHUNK_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-export-render");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.imageCache = new WeightedLruCache<>(cacheMaxBytes, image -> image.length);
+    }
 
     @Override
     public QrCode generateQrCode(Ticket ticket) {
-        try {
-            UUID uniqueId = UUID.randomUUID();
-            String qrCodeImage = generateQrCodeImage(uniqueId);
+        return generateQrCodes(List.of(ticket)).getFirst();
+    }
 
-            QrCode qrCode = new QrCode();
-            qrCode.setId(uniqueId);
-            qrCode.setStatus(QrCodeStatusEnum.ACTIVE);
-            qrCode.setValue(qrCodeImage);
-            qrCode.setTicket(ticket);
+    @Override
+    public List<QrCode> generateQrCodes(List<Ticket> tickets) {
+        List<QrCode> qrCodes = tickets.stream()
+                .map(ticket -> {
+                    QrCode qrCode = new QrCode();
+                    qrCode.setStatus(QrCodeStatusEnum.ACTIVE);
+                    qrCode.setTicket(ticket);
+                    return qrCode;
+                })
+                .toList();
+
+        return qrCodeRepository.saveAll(qrCodes);
+    }
 
-            return qrCodeRepository.saveAndFlush(qrCode);
+    @Override
+    public QrCode getQrCodeForUserAndTicket(UUID userId, UUID ticketId) {
+        return qrCodeRepository.findByTicketIdAndTicketPurchaserId(ticketId, userId)
+                .orElseThrow(QrCodeNotFoundException::new);
+    }
 
-        } catch(IOException | WriterException ex) {
-            throw new QrCodeGenerationException("Failed to generate QR Code", ex);
+    @Override
+    public byte[] getQrCodeImage(UUID qrCodeId, int size, QrCodeImageFormat format) {
+        ImageKey key = new ImageKey(qrCodeId, size, format);
+        byte[] image = imageCache.get(key);
+        if (image == null) {
+            image = render(payloadFor(qrCodeId), size, format);
+            imageCache.put(key, image);
         }
+        return image;
     }
 
+    // Reads the QR codes a chunk at a time by keyset, each chunk in its own short
+    // transaction, so no connection is held while a slow client downloads and
+    // memory stays flat however large the event is. Chunks are rendered on a
+    // dedicated bounded pool. Export images bypass the cache, which is meant for
+    // repeat fetches at the gate.
     @Override
-    public byte[] getQrCodeImageForUserAndTicket(UUID userId, UUID ticketId) {
-        QrCode qrCode = qrCodeRepository.findByTicketIdAndTicketPurchaserId(ticketId, userId)
-                .orElseThrow(QrCodeNotFoundException::new);
+    public void exportEventQrCodes(UUID eventId, int size, QrCodeImageFormat format, OutputStream outputStream) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            // PNG data is already deflated
+            zip.setLevel(format == QrCodeImageFormat.PNG ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+
+            UUID after = FIRST_QR_CODE_ID;
+            List<QrCodeTicketReference> chunk;
+            do {
+                UUID chunkAfter = after;
+                chunk = exportTransactionTemplate.execute(status -> qrCodeRepository.findActivePageByEventId(
+                        eventId, chunkAfter, PageRequest.of(0, EXPORT_CHUNK_SIZE)
+                ));
+                writeChunk(zip, chunk, size, format);
+                if (!chunk.isEmpty()) {
+                    after = chunk.getLast().getQrCodeId();
+                }
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        }
+    }
 
+    private void writeChunk(ZipOutputStream zip, List<QrCodeTicketReference> chunk, int size, QrCodeImageFormat format)
+            throws IOException {
+        List<CompletableFuture<byte[]>> images = new ArrayList<>(chunk.size());
+        for (QrCodeTicketReference reference : chunk) {
+            images.add(CompletableFuture.supplyAsync(() -> render(payloadFor(reference), size, format), exportRenderExecutor));
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            byte[] image;
+            try {
+                image = images.get(i).join();
+            } catch (CompletionException | CancellationException ex) {
+                images.forEach(future -> future.cancel(false));
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+            zip.putNextEntry(new ZipEntry(chunk.get(i).getTicketId() + "." + format.getFileExtension()));
+            zip.write(image);
+            zip.closeEntry();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportRenderExecutor.shutdownNow();
+    }
+
+    private byte[] render(String payload, int size, QrCodeImageFormat format) {
         try {
-            return Base64.getDecoder().decode(qrCode.getValue());
-        } catch(IllegalArgumentException ex) {
-            log.error("Invalid base64 QR Code for ticket ID: {}", ticketId, ex);
-            throw new QrCodeNotFoundException();
+            return generateQrCodeImage(payload, size, format);
+        } catch(WriterException ex) {
+            throw new QrCodeGenerationException("Failed to generate QR Code", ex);
         }
     }
 
-    private String generateQrCodeImage(UUID uniqueId) throws WriterException, IOException {
+    private byte[] generateQrCodeImage(String payload, int size, QrCodeImageFormat format) throws WriterException {
+        // Size 0 gives one bit per module; the encoder scales to the requested size
         BitMatrix bitMatrix = qrCodeWriter.encode(
-                uniqueId.toString(),
+                payload,
                 BarcodeFormat.QR_CODE,
-                QR_WIDTH,
-                QR_HEIGHT
+                0,
+                0
         );
 
-        BufferedImage qrCodeImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-
-        try(ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(qrCodeImage, "PNG", baos);
-            byte[] imageBytes = baos.toByteArray();
+        return switch (format) {
+            case PNG -> QrCodeImageEncoder.toPng(bitMatrix, size);
+            case SVG -> QrCodeImageEncoder.toSvg(bitMatrix, size).getBytes(StandardCharsets.UTF_8);
+        };
+    }
 
-            return Base64.getEncoder().encodeToString(imageBytes);
+    private String payloadFor(UUID qrCodeId) {
+        if (!qrCodePayloadService.isSigningEnabled()) {
+            return qrCodeId.toString();
         }
 
+        return qrCodePayloadService.createPayload(
+                qrCodeRepository.findTicketReference(qrCodeId).orElseThrow(QrCodeNotFoundException::new)
+        );
     }
 
+    private String payloadFor(QrCodeTicketReference reference) {
+        return qrCodePayloadService.isSigningEnabled()
+                ? qrCodePayloadService.createPayload(reference)
+                : reference.getQrCodeId().toString();
+    }
+
+    private record ImageKey(UUID qrCodeId, int size, QrCodeImageFormat format) {
+    }
 }
@@ -0,0 +1,119 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.ScannerManifestEntry;
+import com.tutorial.ticket.domain.entities.QrCodeStatusEnum;
+import com.tutorial.ticket.domain.entities.TicketStatusEnum;
+import com.tutorial.ticket.repositories.QrCodeRepository;
+import com.tutorial.ticket.services.ScannerManifestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary scanner manifest, big-endian:
+ * <pre>
+ * header  int magic "TSM1", byte 1 for a full manifest or 0 for a delta,
+ *         long version (epoch millis; send it back as since on the next sync)
+ * entry   byte state (1 active, 2 already scanned, 3 revoked),
+ *         QR code ID and ticket ID as two longs each
+ * end     byte 0, long number of entries
+ * </pre>
+ * Rows are read in keyset pages, each in its own short transaction, and
+ * written to the response between pages, so a slow scanner never holds a
+ * connection. The version is taken before the first page is read and deltas
+ * reach back by an overlap window, so rows committed late or changed between
+ * pages are sent again rather than missed; applying an entry twice is
+ * harmless.
+ */
+@Service
+public class ScannerManifestServiceImpl implements ScannerManifestService {
+
+    private static final int MAGIC = 0x54534D31; // "TSM1"
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID FIRST_QR_CODE_ID = new UUID(0, 0);
+    private static final int PAGE_SIZE = 1000;
+
+    private static final byte STATE_END = 0;
+    private static final byte STATE_ACTIVE = 1;
+    private static final byte STATE_SCANNED = 2;
+    private static final byte STATE_REVOKED = 3;
+
+    private final QrCodeRepository qrCodeRepository;
+    private final TransactionTemplate readTransactionTemplate;
+    private final Duration overlap;
+
+    public ScannerManifestServiceImpl(
+            QrCodeRepository qrCodeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${ticket.validation.scanner-manifest.overlap-ms:60000}") long overlapMillis
+    ) {
+        this.qrCodeRepository = qrCodeRepository;
+        this.readTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransactionTemplate.setReadOnly(true);
+        this.overlap = Duration.ofMillis(overlapMillis);
+    }
+
+    @Override
+    public void writeManifest(UUID eventId, Long since, OutputStream outputStream) throws IOException {
+        boolean full = since == null;
+        long version = System.currentTimeMillis();
+        LocalDateTime changedSince = full
+                ? BEGINNING
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault()).minus(overlap);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeByte(full ? 1 : 0);
+        out.writeLong(version);
+
+        long count = 0;
+        UUID after = FIRST_QR_CODE_ID;
+        List<ScannerManifestEntry> page;
+        do {
+            UUID pageAfter = after;
+            page = readTransactionTemplate.execute(status -> qrCodeRepository.findScannerManifestPage(
+                    eventId, changedSince, pageAfter, PageRequest.of(0, PAGE_SIZE)
+            ));
+            for (ScannerManifestEntry entry : page) {
+                byte state = stateOf(entry);
+                // A scanner starting from scratch has nothing to revoke
+                if (full && state == STATE_REVOKED) {
+                    continue;
+                }
+                out.writeByte(state);
+                out.writeLong(entry.getQrCodeId().getMostSignificantBits());
+                out.writeLong(entry.getQrCodeId().getLeastSignificantBits());
+                out.writeLong(entry.getTicketId().getMostSignificantBits());
+                out.writeLong(entry.getTicketId().getLeastSignificantBits());
+                count++;
+            }
+            if (!page.isEmpty()) {
+                after = page.getLast().getQrCodeId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        out.writeByte(STATE_END);
+        out.writeLong(count);
+        out.flush();
+    }
+
+    private static byte stateOf(ScannerManifestEntry entry) {
+        if (entry.getQrCodeStatus() != QrCodeStatusEnum.ACTIVE || entry.getTicketStatus() != TicketStatusEnum.PURCHASED) {
+            return STATE_REVOKED;
+        }
+        return entry.getFirstValidatedAt() != null ? STATE_SCANNED : STATE_ACTIVE;
+    }
+}
@@ -0,0 +1,211 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.TicketHoldExpiry;
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.TicketHold;
+import com.tutorial.ticket.domain.entities.TicketHoldStatusEnum;
+import com.tutorial.ticket.domain.entities.User;
+import com.tutorial.ticket.exceptions.TicketHoldExpiredException;
+import com.tutorial.ticket.exceptions.TicketHoldNotFoundException;
+import com.tutorial.ticket.exceptions.TicketsSoldOutException;
+import com.tutorial.ticket.exceptions.UserNotFoundException;
+import com.tutorial.ticket.repositories.TicketHoldRepository;
+import com.tutorial.ticket.repositories.TicketTypeRepository;
+import com.tutorial.ticket.repositories.UserRepository;
+import com.tutorial.ticket.services.TicketHoldService;
+import com.tutorial.ticket.services.TicketInventoryService;
+import com.tutorial.ticket.services.TicketTypeService;
+import com.tutorial.ticket.util.HashedTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds take stock from a ticket type for a limited time while the user checks
+ * out. Holds are counted in the ticket type's sold column exactly like purchased
+ * tickets, so they can never oversell; an unpaid hold is handed back when its
+ * timer fires. Timers live in a hashed timing wheel and are rebuilt from the
+ * ticket_holds table on startup.
+ */
+@Service
+@Slf4j
+public class TicketHoldServiceImpl implements TicketHoldService {
+
+    private final TicketHoldRepository ticketHoldRepository;
+    private final TicketTypeRepository ticketTypeRepository;
+    private final UserRepository userRepository;
+    private final TicketTypeService ticketTypeService;
+    private final TicketInventoryService ticketInventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdDuration;
+    private final HashedTimingWheel<UUID> expiryWheel;
+
+    private final Map<UUID, HashedTimingWheel.Timeout<UUID>> expiryTimeouts = new ConcurrentHashMap<>();
+
+    public TicketHoldServiceImpl(
+            TicketHoldRepository ticketHoldRepository,
+            TicketTypeRepository ticketTypeRepository,
+            UserRepository userRepository,
+            TicketTypeService ticketTypeService,
+            TicketInventoryService ticketInventoryService,
+            PlatformTransactionManager transactionManager,
+            @Value("${ticket.holds.duration-ms:600000}") long holdDurationMillis,
+            @Value("${ticket.holds.tick-ms:1000}") long tickMillis,
+            @Value("${ticket.holds.wheel-size:1024}") int wheelSize
+    ) {
+        this.ticketHoldRepository = ticketHoldRepository;
+        this.ticketTypeRepository = ticketTypeRepository;
+        this.userRepository = userRepository;
+        this.ticketTypeService = ticketTypeService;
+        this.ticketInventoryService = ticketInventoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdDuration = Duration.ofMillis(holdDurationMillis);
+        this.expiryWheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    @Override
+    @Transactional
+    public TicketHold createHold(UUID userId, UUID ticketTypeId, int quantity) {
+        if(ticketInventoryService.isSoldOut(ticketTypeId)) {
+            throw new TicketsSoldOutException();
+        }
+
+        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(
+                String.format("User with ID %s was not found", userId)
+        ));
+
+        ticketTypeService.reserveTickets(ticketTypeId, quantity);
+
+        TicketHold ticketHold = new TicketHold();
+        ticketHold.setStatus(TicketHoldStatusEnum.ACTIVE);
+        ticketHold.setQuantity(quantity);
+        ticketHold.setExpiresAt(LocalDateTime.now().plus(holdDuration));
+        ticketHold.setTicketType(ticketTypeRepository.getReferenceById(ticketTypeId));
+        ticketHold.setHolder(user);
+
+        TicketHold savedHold = ticketHoldRepository.save(ticketHold);
+
+        UUID holdId = savedHold.getId();
+        long deadline = toEpochMillis(savedHold.getExpiresAt());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduleExpiry(holdId, deadline);
+            }
+        });
+
+        return savedHold;
+    }
+
+    @Override
+    @Transactional
+    public void releaseHold(UUID userId, UUID holdId) {
+        TicketHold ticketHold = findHold(userId, holdId);
+
+        if(ticketHoldRepository.close(holdId, TicketHoldStatusEnum.RELEASED, LocalDateTime.now()) == 0) {
+            return;
+        }
+
+        ticketTypeService.releaseTickets(ticketHold.getTicketType().getId(), ticketHold.getQuantity());
+        cancelExpiry(holdId);
+    }
+
+    @Override
+    @Transactional
+    public List<Ticket> purchaseHold(UUID userId, UUID holdId) {
+        TicketHold ticketHold = findHold(userId, holdId);
+
+        if(ticketHoldRepository.closeUnexpired(holdId, TicketHoldStatusEnum.PURCHASED, LocalDateTime.now()) == 0) {
+            throw new TicketHoldExpiredException(
+                    String.format("Ticket hold with ID %s is no longer active", holdId)
+            );
+        }
+
+        // Stock was taken when the hold was created, so the tickets are issued directly
+        List<Ticket> tickets = ticketTypeService.issueTickets(
+                ticketHold.getHolder(),
+                ticketHold.getTicketType().getId(),
+                ticketHold.getQuantity()
+        );
+        cancelExpiry(holdId);
+
+        return tickets;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreActiveHolds() {
+        List<TicketHoldExpiry> activeHolds = ticketHoldRepository.findActiveExpiries();
+        activeHolds.forEach(hold -> scheduleExpiry(hold.getHoldId(), toEpochMillis(hold.getExpiresAt())));
+
+        if(!activeHolds.isEmpty()) {
+            log.info("Restored {} active ticket holds", activeHolds.size());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${ticket.holds.tick-ms:1000}")
+    public void expireHolds() {
+        List<UUID> expiredHoldIds = expiryWheel.advance(System.currentTimeMillis());
+        for(UUID holdId : expiredHoldIds) {
+            expiryTimeouts.remove(holdId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> expireHold(holdId));
+            } catch(RuntimeException ex) {
+                log.error("Failed to expire ticket hold with ID: {}", holdId, ex);
+            }
+        }
+    }
+
+    private void expireHold(UUID holdId) {
+        TicketHold ticketHold = ticketHoldRepository.findById(holdId).orElse(null);
+        if(ticketHold == null) {
+            return;
+        }
+
+        if(ticketHoldRepository.close(holdId, TicketHoldStatusEnum.EXPIRED, LocalDateTime.now()) == 1) {
+            ticketTypeService.releaseTickets(ticketHold.getTicketType().getId(), ticketHold.getQuantity());
+        }
+    }
+
+    private TicketHold findHold(UUID userId, UUID holdId) {
+        return ticketHoldRepository.findByIdAndHolderId(holdId, userId)
+                .orElseThrow(() -> new TicketHoldNotFoundException(
+                        String.format("Ticket hold with ID %s was not found", holdId)
+                ));
+    }
+
+    private void scheduleExpiry(UUID holdId, long deadlineMillis) {
+        expiryTimeouts.put(holdId, expiryWheel.schedule(holdId, deadlineMillis));
+    }
+
+    private void cancelExpiry(UUID holdId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                HashedTimingWheel.Timeout<UUID> timeout = expiryTimeouts.remove(holdId);
+                if(timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        });
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,229 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.TicketTypeInventory;
+import com.tutorial.ticket.exceptions.TicketTypeNotFoundException;
+import com.tutorial.ticket.repositories.TicketTypeRepository;
+import com.tutorial.ticket.services.TicketInventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the remaining stock of every ticket type in memory so that purchases can
+ * be rejected without touching the database. The sold column of the ticket type
+ * stays the source of truth: counters are rebuilt on startup and corrected on a
+ * schedule.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketInventoryServiceImpl implements TicketInventoryService {
+
+    private final TicketTypeRepository ticketTypeRepository;
+
+    private final Map<UUID, InventoryCounter> counters = new ConcurrentHashMap<>();
+
+    // Releases are rare (rolled back purchases) but must not interleave with a
+    // reconcile pass, otherwise the correction would count them twice.
+    private final ReentrantReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+
+    @Override
+    public boolean tryReserve(UUID ticketTypeId, int quantity) {
+        InventoryCounter counter = counters.computeIfAbsent(ticketTypeId, this::loadCounter);
+
+        // Count the reservation as in flight before taking it, so a concurrent
+        // reconcile can only ever under-estimate the remaining stock.
+        counter.inFlight.addAndGet(quantity);
+        if (!counter.allocate(quantity)) {
+            counter.inFlight.addAndGet(-quantity);
+            return false;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.inFlight.addAndGet(-quantity);
+            return true;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    counter.inFlight.addAndGet(-quantity);
+                } else {
+                    releaseInFlight(counter, quantity);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void release(UUID ticketTypeId, int quantity) {
+        InventoryCounter counter = counters.get(ticketTypeId);
+        if (counter == null) {
+            return;
+        }
+
+        reconcileLock.readLock().lock();
+        try {
+            counter.allocated.addAndGet(-quantity);
+            counter.soldOut = false;
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void returnUnallocated(UUID ticketTypeId, int quantity) {
+        InventoryCounter counter = counters.get(ticketTypeId);
+        if (counter == null) {
+            return;
+        }
+
+        reconcileLock.readLock().lock();
+        try {
+            counter.allocated.addAndGet(-quantity);
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getRemaining(UUID ticketTypeId) {
+        InventoryCounter counter = counters.computeIfAbsent(ticketTypeId, this::loadCounter);
+        return Math.max(0, counter.totalAvailable - counter.allocated.get());
+    }
+
+    @Override
+    public boolean isSoldOut(UUID ticketTypeId) {
+        InventoryCounter counter = counters.computeIfAbsent(ticketTypeId, this::loadCounter);
+        return counter.soldOut || counter.allocated.get() >= counter.totalAvailable;
+    }
+
+    @Override
+    public void markSoldOut(UUID ticketTypeId) {
+        InventoryCounter counter = counters.get(ticketTypeId);
+        if (counter != null) {
+            counter.soldOut = true;
+        }
+    }
+
+    @Override
+    public UUID getEventId(UUID ticketTypeId) {
+        return counters.computeIfAbsent(ticketTypeId, this::loadCounter).eventId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    @Override
+    public void reconcile() {
+        reconcileLock.writeLock().lock();
+        try {
+            Map<UUID, int[]> snapshots = new HashMap<>();
+            counters.forEach((id, counter) ->
+                    snapshots.put(id, new int[]{counter.allocated.get(), counter.inFlight.get()}));
+
+            List<TicketTypeInventory> inventories = ticketTypeRepository.findAllInventory();
+            for (TicketTypeInventory inventory : inventories) {
+                int[] snapshot = snapshots.get(inventory.getTicketTypeId());
+                if (snapshot == null) {
+                    counters.putIfAbsent(inventory.getTicketTypeId(), toCounter(inventory));
+                    continue;
+                }
+
+                InventoryCounter counter = counters.get(inventory.getTicketTypeId());
+                counter.totalAvailable = totalOf(inventory);
+                counter.soldOut = inventory.getSold() >= counter.totalAvailable;
+                int expected = inventory.getSold() + snapshot[1];
+                int drift = expected - snapshot[0];
+                if (drift != 0) {
+                    log.info("Correcting inventory for ticket type {} by {}", inventory.getTicketTypeId(), drift);
+                    counter.allocated.addAndGet(drift);
+                }
+            }
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${ticket.inventory.reconcile-interval-ms:60000}",
+            fixedDelayString = "${ticket.inventory.reconcile-interval-ms:60000}"
+    )
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    // A rolled back reservation never reached the database, so a sold out mark set
+    // when the database refused it stays in place
+    private void releaseInFlight(InventoryCounter counter, int quantity) {
+        reconcileLock.readLock().lock();
+        try {
+            counter.allocated.addAndGet(-quantity);
+            counter.inFlight.addAndGet(-quantity);
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    private InventoryCounter loadCounter(UUID ticketTypeId) {
+        return ticketTypeRepository.findInventoryByIds(List.of(ticketTypeId)).stream()
+                .findFirst()
+                .map(this::toCounter)
+                .orElseThrow(() -> new TicketTypeNotFoundException(
+                        String.format("Ticket type with ID %s was not found", ticketTypeId)
+                ));
+    }
+
+    private InventoryCounter toCounter(TicketTypeInventory inventory) {
+        return new InventoryCounter(inventory.getEventId(), totalOf(inventory), inventory.getSold());
+    }
+
+    private static int totalOf(TicketTypeInventory inventory) {
+        return inventory.getTotalAvailable() != null ? inventory.getTotalAvailable() : 0;
+    }
+
+    private static final class InventoryCounter {
+
+        private final UUID eventId;
+        private volatile int totalAvailable;
+        private final AtomicInteger allocated;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Set from the database side; running out locally is seen from allocated
+        private volatile boolean soldOut;
+
+        private InventoryCounter(UUID eventId, int totalAvailable, int allocated) {
+            this.eventId = eventId;
+            this.totalAvailable = totalAvailable;
+            this.allocated = new AtomicInteger(allocated);
+        }
+
+        private boolean allocate(int quantity) {
+            while (true) {
+                int current = allocated.get();
+                if (current + quantity > totalAvailable) {
+                    return false;
+                }
+                if (allocated.compareAndSet(current, current + quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
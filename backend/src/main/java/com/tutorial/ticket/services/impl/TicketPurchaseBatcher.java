@@ -0,0 +1,327 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.IdempotencyClaim;
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.TicketStatusEnum;
+import com.tutorial.ticket.domain.entities.TicketType;
+import com.tutorial.ticket.domain.entities.User;
+import com.tutorial.ticket.exceptions.DuplicateIdempotencyKeyException;
+import com.tutorial.ticket.exceptions.TicketTypeNotFoundException;
+import com.tutorial.ticket.exceptions.TicketsSoldOutException;
+import com.tutorial.ticket.exceptions.UserNotFoundException;
+import com.tutorial.ticket.repositories.TicketRepository;
+import com.tutorial.ticket.repositories.TicketTypeRepository;
+import com.tutorial.ticket.repositories.UserRepository;
+import com.tutorial.ticket.services.IdempotencyService;
+import com.tutorial.ticket.services.QrCodeService;
+import com.tutorial.ticket.services.TicketInventoryService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for single-ticket purchases. Requests for the same ticket type
+ * are collected for a short window (or until the batch is full) and allocated
+ * together: one transaction, one conditional update of the sold column and one
+ * batched insert, instead of one transaction per buyer queueing on the same row.
+ * A full batch is flushed straight away, and whatever is still queued at
+ * shutdown is allocated before the application stops.
+ */
+@Component
+@Slf4j
+public class TicketPurchaseBatcher {
+
+    private final TicketTypeRepository ticketTypeRepository;
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final QrCodeService qrCodeService;
+    private final TicketInventoryService ticketInventoryService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flushExecutor;
+    private final long shutdownTimeoutMillis;
+
+    private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public TicketPurchaseBatcher(
+            TicketTypeRepository ticketTypeRepository,
+            TicketRepository ticketRepository,
+            UserRepository userRepository,
+            QrCodeService qrCodeService,
+            TicketInventoryService ticketInventoryService,
+            IdempotencyService idempotencyService,
+            TransactionTemplate transactionTemplate,
+            @Value("${ticket.purchase.batching.enabled:false}") boolean enabled,
+            @Value("${ticket.purchase.batching.window-micros:2000}") long windowMicros,
+            @Value("${ticket.purchase.batching.max-batch-size:64}") int maxBatchSize,
+            @Value("${ticket.purchase.batching.threads:4}") int threads,
+            @Value("${ticket.purchase.batching.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis
+    ) {
+        this.ticketTypeRepository = ticketTypeRepository;
+        this.ticketRepository = ticketRepository;
+        this.userRepository = userRepository;
+        this.qrCodeService = qrCodeService;
+        this.ticketInventoryService = ticketInventoryService;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.flushExecutor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "purchase-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<Ticket> submit(UUID userId, UUID ticketTypeId, IdempotencyClaim idempotencyClaim) {
+        if (shuttingDown) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Purchases are not accepted while shutting down")
+            );
+        }
+
+        PendingPurchase purchase = new PendingPurchase(userId, idempotencyClaim, new CompletableFuture<>());
+        Lane lane = lanes.computeIfAbsent(ticketTypeId, Lane::new);
+
+        lane.queue.add(purchase);
+        int queued = lane.size.incrementAndGet();
+        if (shuttingDown) {
+            // Raced with shutdown after its final flush; nothing else will pick this up
+            flush(lane);
+            return purchase.result;
+        }
+        if (queued >= maxBatchSize) {
+            // A full batch does not wait out the window, even if a delayed flush is already pending
+            if (lane.fullFlushPending.compareAndSet(false, true)) {
+                flushExecutor.execute(() -> flush(lane));
+            }
+        } else if (lane.scheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(() -> flush(lane), windowMicros, TimeUnit.MICROSECONDS);
+        }
+
+        return purchase.result;
+    }
+
+    // Lets running batches finish, then allocates whatever is still queued on this thread
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shuttingDown = true;
+        flushExecutor.shutdown();
+        if (!flushExecutor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Purchase batches still running after {} ms", shutdownTimeoutMillis);
+        }
+        lanes.values().forEach(this::flush);
+    }
+
+    private void flush(Lane lane) {
+        // Cleared before draining, so a submit racing with this flush arms a new one
+        lane.scheduled.set(false);
+        lane.fullFlushPending.set(false);
+
+        // One flush per lane at a time; a flush that finds the queue drained returns at once
+        synchronized (lane) {
+            List<PendingPurchase> batch;
+            while (!(batch = drain(lane)).isEmpty()) {
+                allocate(lane.ticketTypeId, batch);
+            }
+        }
+    }
+
+    private List<PendingPurchase> drain(Lane lane) {
+        List<PendingPurchase> batch = new ArrayList<>(maxBatchSize);
+        PendingPurchase purchase;
+        while (batch.size() < maxBatchSize && (purchase = lane.queue.poll()) != null) {
+            lane.size.decrementAndGet();
+            batch.add(purchase);
+        }
+        return batch;
+    }
+
+    private void allocate(UUID ticketTypeId, List<PendingPurchase> batch) {
+        Map<PendingPurchase, Ticket> issued;
+        try {
+            issued = transactionTemplate.execute(status -> allocateInTransaction(ticketTypeId, batch));
+        } catch (RuntimeException ex) {
+            log.error("Failed to allocate purchase batch for ticket type {}", ticketTypeId, ex);
+            batch.forEach(p -> p.result.completeExceptionally(ex));
+            return;
+        }
+
+        for (PendingPurchase p : batch) {
+            Ticket ticket = issued.get(p);
+            if (ticket != null) {
+                p.result.complete(ticket);
+            }
+        }
+    }
+
+    private Map<PendingPurchase, Ticket> allocateInTransaction(UUID ticketTypeId, List<PendingPurchase> batch) {
+        Set<UUID> userIds = batch.stream().map(PendingPurchase::userId).collect(Collectors.toSet());
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<PendingPurchase> candidates = new ArrayList<>(batch.size());
+        for (PendingPurchase p : batch) {
+            if (!users.containsKey(p.userId())) {
+                p.result.completeExceptionally(new UserNotFoundException(
+                        String.format("User with ID %s was not found", p.userId())
+                ));
+            } else {
+                candidates.add(p);
+            }
+        }
+
+        // Keys are claimed before any stock is taken, in one statement for the whole batch
+        List<IdempotencyClaim> claims = candidates.stream()
+                .map(PendingPurchase::idempotencyClaim)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<UUID> claimed = claims.isEmpty() ? Set.of() : idempotencyService.claim(claims);
+
+        List<PendingPurchase> granted = new ArrayList<>(candidates.size());
+        for (PendingPurchase p : candidates) {
+            if (p.idempotencyClaim() != null && !claimed.contains(p.idempotencyClaim().getId())) {
+                p.result.completeExceptionally(new DuplicateIdempotencyKeyException());
+            } else if (!ticketInventoryService.tryReserve(ticketTypeId, 1)) {
+                p.result.completeExceptionally(new TicketsSoldOutException());
+            } else {
+                granted.add(p);
+            }
+        }
+
+        if (granted.isEmpty()) {
+            releaseUnusedClaims(claimed, candidates, granted);
+            return Map.of();
+        }
+
+        int allocated = reserveInDatabase(ticketTypeId, granted.size());
+        if (allocated < granted.size()) {
+            // The in-memory counter was ahead of the database; hand back what we could not get
+            int shortfall = granted.size() - allocated;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ticketInventoryService.returnUnallocated(ticketTypeId, shortfall);
+                }
+            });
+
+            List<PendingPurchase> rejected = granted.subList(allocated, granted.size());
+            rejected.forEach(p -> p.result.completeExceptionally(new TicketsSoldOutException()));
+            granted = new ArrayList<>(granted.subList(0, allocated));
+        }
+        releaseUnusedClaims(claimed, candidates, granted);
+
+        TicketType ticketType = ticketTypeRepository.getReferenceById(ticketTypeId);
+        List<Ticket> tickets = new ArrayList<>(granted.size());
+        for (PendingPurchase p : granted) {
+            Ticket ticket = new Ticket();
+            ticket.setStatus(TicketStatusEnum.PURCHASED);
+            ticket.setTicketType(ticketType);
+            ticket.setPurchaser(users.get(p.userId()));
+            tickets.add(ticket);
+        }
+
+        List<Ticket> savedTickets = ticketRepository.saveAll(tickets);
+        qrCodeService.generateQrCodes(savedTickets);
+
+        Map<PendingPurchase, Ticket> issued = new HashMap<>();
+        List<IdempotencyClaim> issuedClaims = new ArrayList<>();
+        for (int i = 0; i < granted.size(); i++) {
+            PendingPurchase p = granted.get(i);
+            issued.put(p, savedTickets.get(i));
+            if (p.idempotencyClaim() != null) {
+                p.idempotencyClaim().setTicketId(savedTickets.get(i).getId());
+                issuedClaims.add(p.idempotencyClaim());
+            }
+        }
+        if (!issuedClaims.isEmpty()) {
+            idempotencyService.recordTickets(issuedClaims);
+        }
+        return issued;
+    }
+
+    // A key whose purchase got no ticket is given up, so the client can retry with it
+    private void releaseUnusedClaims(Set<UUID> claimed, List<PendingPurchase> candidates, List<PendingPurchase> granted) {
+        Set<PendingPurchase> issued = new HashSet<>(granted);
+        List<IdempotencyClaim> unused = candidates.stream()
+                .filter(p -> !issued.contains(p))
+                .map(PendingPurchase::idempotencyClaim)
+                .filter(claim -> claim != null && claimed.contains(claim.getId()))
+                .toList();
+        if (!unused.isEmpty()) {
+            idempotencyService.release(unused);
+        }
+    }
+
+    // Takes as many of the requested tickets as are left, in at most two statements
+    private int reserveInDatabase(UUID ticketTypeId, int quantity) {
+        if (ticketTypeRepository.reserveTickets(ticketTypeId, quantity) == 1) {
+            return quantity;
+        }
+
+        TicketType ticketType = ticketTypeRepository.findByIdWithLock(ticketTypeId)
+                .orElseThrow(() -> new TicketTypeNotFoundException(
+                        String.format("Ticket type with ID %s was not found", ticketTypeId)
+                ));
+        int totalAvailable = ticketType.getTotalAvailable() != null ? ticketType.getTotalAvailable() : 0;
+        int available = Math.max(0, Math.min(quantity, totalAvailable - ticketType.getSold()));
+
+        if (available > 0) {
+            ticketTypeRepository.reserveTickets(ticketTypeId, available);
+        }
+        if (available < quantity) {
+            ticketInventoryService.markSoldOut(ticketTypeId);
+        }
+        return available;
+    }
+
+    private record PendingPurchase(UUID userId, IdempotencyClaim idempotencyClaim, CompletableFuture<Ticket> result) {
+    }
+
+    private static final class Lane {
+
+        private final UUID ticketTypeId;
+        private final Queue<PendingPurchase> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean fullFlushPending = new AtomicBoolean();
+
+        private Lane(UUID ticketTypeId) {
+            this.ticketTypeId = ticketTypeId;
+        }
+    }
+}
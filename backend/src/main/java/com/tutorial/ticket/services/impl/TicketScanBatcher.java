@@ -0,0 +1,185 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.TicketScan;
+import com.tutorial.ticket.domain.TicketScanResult;
+import com.tutorial.ticket.exceptions.InvalidQrCodePayloadException;
+import com.tutorial.ticket.exceptions.QrCodeNotFoundException;
+import com.tutorial.ticket.services.TicketValidationService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching for live gate scans. Concurrent scans are collected for a
+ * short window (or until the batch is full) and decided together by
+ * {@link TicketValidationService#validateTicketScans}: one IN-list lookup, one
+ * conditional update and one batched insert per batch instead of a
+ * transaction per scan. Scans are spread over lanes by QR contents, so repeat
+ * scans of one code stay in order and lanes flush in parallel. A full batch is
+ * flushed straight away, and scans still queued at shutdown are decided
+ * before the application stops.
+ */
+@Component
+@Slf4j
+public class TicketScanBatcher {
+
+    private final TicketValidationService ticketValidationService;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flushExecutor;
+    private final long shutdownTimeoutMillis;
+    private final Lane[] lanes;
+    private volatile boolean shuttingDown;
+
+    public TicketScanBatcher(
+            TicketValidationService ticketValidationService,
+            @Value("${ticket.validation.batching.enabled:false}") boolean enabled,
+            @Value("${ticket.validation.batching.window-micros:500}") long windowMicros,
+            @Value("${ticket.validation.batching.max-batch-size:256}") int maxBatchSize,
+            @Value("${ticket.validation.batching.threads:4}") int threads,
+            @Value("${ticket.validation.batching.shutdown-timeout-ms:5000}") long shutdownTimeoutMillis
+    ) {
+        this.ticketValidationService = ticketValidationService;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.flushExecutor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "scan-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lanes = new Lane[threads];
+        for (int i = 0; i < threads; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<TicketScanResult> submit(TicketScan scan) {
+        if (shuttingDown) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Scans are not accepted while shutting down")
+            );
+        }
+
+        PendingScan pending = new PendingScan(scan, new CompletableFuture<>());
+        Object key = scan.getPayload() != null ? scan.getPayload() : scan.getId();
+        Lane lane = lanes[Math.floorMod(key != null ? key.hashCode() : 0, lanes.length)];
+
+        lane.queue.add(pending);
+        int queued = lane.size.incrementAndGet();
+        if (shuttingDown) {
+            // Raced with shutdown after its final flush; nothing else will pick this up
+            flush(lane);
+            return pending.result;
+        }
+        if (queued >= maxBatchSize) {
+            // A full batch does not wait out the window, even if a delayed flush is already pending
+            if (lane.fullFlushPending.compareAndSet(false, true)) {
+                flushExecutor.execute(() -> flush(lane));
+            }
+        } else if (lane.scheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(() -> flush(lane), windowMicros, TimeUnit.MICROSECONDS);
+        }
+
+        return pending.result;
+    }
+
+    // Lets running batches finish, then decides whatever is still queued on this thread
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shuttingDown = true;
+        flushExecutor.shutdown();
+        if (!flushExecutor.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Scan batches still running after {} ms", shutdownTimeoutMillis);
+        }
+        for (Lane lane : lanes) {
+            flush(lane);
+        }
+    }
+
+    private void flush(Lane lane) {
+        // Cleared before draining, so a submit racing with this flush arms a new one
+        lane.scheduled.set(false);
+        lane.fullFlushPending.set(false);
+
+        // One flush per lane at a time keeps repeat scans of a code in order
+        synchronized (lane) {
+            List<PendingScan> batch;
+            while (!(batch = drain(lane)).isEmpty()) {
+                validate(batch);
+            }
+        }
+    }
+
+    private List<PendingScan> drain(Lane lane) {
+        List<PendingScan> batch = new ArrayList<>(maxBatchSize);
+        PendingScan pending;
+        while (batch.size() < maxBatchSize && (pending = lane.queue.poll()) != null) {
+            lane.size.decrementAndGet();
+            batch.add(pending);
+        }
+        return batch;
+    }
+
+    private void validate(List<PendingScan> batch) {
+        List<TicketScanResult> results;
+        try {
+            results = ticketValidationService.validateTicketScans(
+                    batch.stream().map(PendingScan::scan).toList()
+            );
+        } catch (RuntimeException ex) {
+            log.error("Failed to validate scan batch of {}", batch.size(), ex);
+            batch.forEach(p -> p.result.completeExceptionally(ex));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingScan p = batch.get(i);
+            TicketScanResult result = results.get(i);
+            if (result.getError() == null) {
+                p.result.complete(result);
+                continue;
+            }
+
+            // Same errors as the single-scan path
+            switch (result.getError()) {
+                case INVALID_PAYLOAD -> p.result.completeExceptionally(
+                        new InvalidQrCodePayloadException("Malformed QR code payload")
+                );
+                case QR_CODE_NOT_FOUND -> p.result.completeExceptionally(new QrCodeNotFoundException(
+                        String.format("QR Code with ID %s was not found",
+                                p.scan().getId() != null ? p.scan().getId() : p.scan().getPayload())
+                ));
+            }
+        }
+    }
+
+    private record PendingScan(TicketScan scan, CompletableFuture<TicketScanResult> result) {
+    }
+
+    private static final class Lane {
+
+        private final Queue<PendingScan> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean fullFlushPending = new AtomicBoolean();
+    }
+}
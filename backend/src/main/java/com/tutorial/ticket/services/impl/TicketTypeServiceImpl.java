@@ -1,12 +1,18 @@
 package com.tutorial.ticket.services.impl;
 
+import com.tutorial.ticket.domain.IdempotencyClaim;
+import com.tutorial.ticket.domain.PurchaseTicketItemRequest;
+import com.tutorial.ticket.domain.PurchaseTicketsRequest;
+import com.tutorial.ticket.exceptions.DuplicateIdempotencyKeyException;
+import com.tutorial.ticket.exceptions.TicketTypeNotFoundException;
 import com.tutorial.ticket.exceptions.TicketsSoldOutException;
 import com.tutorial.ticket.exceptions.UserNotFoundException;
 import com.tutorial.ticket.repositories.TicketRepository;
 import com.tutorial.ticket.repositories.TicketTypeRepository;
+import com.tutorial.ticket.services.IdempotencyService;
 import com.tutorial.ticket.services.QrCodeService;
+import com.tutorial.ticket.services.TicketInventoryService;
 import com.tutorial.ticket.services.TicketTypeService;
-import com.tutorial.ticket.exceptions.TicketTypeNotFoundException;
 import com.tutorial.ticket.repositories.UserRepository;
 import com.tutorial.ticket.domain.entities.Ticket;
 import com.tutorial.ticket.domain.entities.TicketStatusEnum;
@@ -15,8 +21,19 @@ import com.tutorial.ticket.domain.entities.User;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +43,10 @@ public class TicketTypeServiceImpl implements TicketTypeService {
     private final TicketTypeRepository ticketTypeRepository;
     private final TicketRepository ticketRepository;
     private final QrCodeService qrCodeService;
+    private final TicketInventoryService ticketInventoryService;
+    private final TicketPurchaseBatcher ticketPurchaseBatcher;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional
@@ -34,26 +55,138 @@ public class TicketTypeServiceImpl implements TicketTypeService {
                 String.format("User with ID %s was not found", userId)
         ));
 
-        TicketType ticketType = ticketTypeRepository.findByIdWithLock(ticketTypeId)
-                .orElseThrow(() -> new TicketTypeNotFoundException(
+        reserveTickets(ticketTypeId, 1);
+
+        return issueTickets(user, ticketTypeId, 1).getFirst();
+    }
+
+    @Override
+    public CompletableFuture<Ticket> purchaseTicketAsync(UUID userId, UUID ticketTypeId, IdempotencyClaim idempotencyClaim) {
+        // Once sold out, refuse before queueing for a batch or a connection
+        if(ticketInventoryService.isSoldOut(ticketTypeId)) {
+            return CompletableFuture.failedFuture(new TicketsSoldOutException());
+        }
+
+        if(ticketPurchaseBatcher.isEnabled()) {
+            return ticketPurchaseBatcher.submit(userId, ticketTypeId, idempotencyClaim);
+        }
+
+        return CompletableFuture.completedFuture(
+                transactionTemplate.execute(status -> purchaseTicket(userId, ticketTypeId, idempotencyClaim))
+        );
+    }
+
+    // The key is claimed before any stock is taken, and both commit together
+    private Ticket purchaseTicket(UUID userId, UUID ticketTypeId, IdempotencyClaim idempotencyClaim) {
+        if(idempotencyClaim == null) {
+            return purchaseTicket(userId, ticketTypeId);
+        }
+
+        if(idempotencyService.claim(List.of(idempotencyClaim)).isEmpty()) {
+            throw new DuplicateIdempotencyKeyException();
+        }
+
+        Ticket ticket = purchaseTicket(userId, ticketTypeId);
+        idempotencyClaim.setTicketId(ticket.getId());
+        idempotencyService.recordTickets(List.of(idempotencyClaim));
+        return ticket;
+    }
+
+    @Override
+    @Transactional
+    public List<Ticket> purchaseTickets(UUID userId, UUID eventId, PurchaseTicketsRequest request) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(
+                String.format("User with ID %s was not found", userId)
+        ));
+
+        // Sorted by ID so that every bundle locks ticket type rows in the same order
+        SortedMap<UUID, Integer> quantities = new TreeMap<>();
+        for(PurchaseTicketItemRequest item : request.getItems()) {
+            quantities.merge(item.getTicketTypeId(), item.getQuantity(), Integer::sum);
+        }
+
+        Set<UUID> eventTicketTypeIds = new HashSet<>(
+                ticketTypeRepository.findIdsByEventIdAndIdIn(eventId, quantities.keySet())
+        );
+        for(UUID ticketTypeId : quantities.keySet()) {
+            if(!eventTicketTypeIds.contains(ticketTypeId)) {
+                throw new TicketTypeNotFoundException(
                         String.format("Ticket type with ID %s was not found", ticketTypeId)
-                ));
+                );
+            }
+        }
+
+        for(UUID ticketTypeId : quantities.keySet()) {
+            if(ticketInventoryService.isSoldOut(ticketTypeId)) {
+                throw new TicketsSoldOutException();
+            }
+        }
 
-        int purchasedTickets = ticketRepository.countByTicketTypeId(ticketType.getId());
-        Integer totalAvailable = ticketType.getTotalAvailable();
+        for(Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            reserveTickets(entry.getKey(), entry.getValue());
+        }
 
-        if(purchasedTickets + 1 > totalAvailable) {
+        List<Ticket> tickets = new ArrayList<>();
+        for(Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            tickets.addAll(createTickets(user, entry.getKey(), entry.getValue()));
+        }
+        qrCodeService.generateQrCodes(tickets);
+
+        return tickets;
+    }
+
+    // Rolling back the surrounding transaction returns the tickets to both counters
+    @Override
+    @Transactional
+    public void reserveTickets(UUID ticketTypeId, int quantity) {
+        if(!ticketInventoryService.tryReserve(ticketTypeId, quantity)) {
             throw new TicketsSoldOutException();
         }
 
-        Ticket ticket = new Ticket();
-        ticket.setStatus(TicketStatusEnum.PURCHASED);
-        ticket.setTicketType(ticketType);
-        ticket.setPurchaser(user);
+        if(ticketTypeRepository.reserveTickets(ticketTypeId, quantity) == 0) {
+            // A single ticket failing means none are left, larger requests may still fit
+            if(quantity == 1) {
+                ticketInventoryService.markSoldOut(ticketTypeId);
+            }
+            throw new TicketsSoldOutException();
+        }
+    }
 
-        Ticket savedTicket = ticketRepository.save(ticket);
-        qrCodeService.generateQrCode(savedTicket);
+    @Override
+    @Transactional
+    public void releaseTickets(UUID ticketTypeId, int quantity) {
+        if(ticketTypeRepository.releaseTickets(ticketTypeId, quantity) == 0) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ticketInventoryService.release(ticketTypeId, quantity);
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<Ticket> issueTickets(User purchaser, UUID ticketTypeId, int quantity) {
+        List<Ticket> tickets = createTickets(purchaser, ticketTypeId, quantity);
+        qrCodeService.generateQrCodes(tickets);
+        return tickets;
+    }
+
+    private List<Ticket> createTickets(User user, UUID ticketTypeId, int quantity) {
+        TicketType ticketType = ticketTypeRepository.getReferenceById(ticketTypeId);
+
+        List<Ticket> tickets = new ArrayList<>(quantity);
+        for(int i = 0; i < quantity; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setStatus(TicketStatusEnum.PURCHASED);
+            ticket.setTicketType(ticketType);
+            ticket.setPurchaser(user);
+            tickets.add(ticket);
+        }
 
-        return ticketRepository.save(savedTicket);
+        return ticketRepository.saveAll(tickets);
     }
 }
@@ -1,62 +1,350 @@
 package com.tutorial.ticket.services.impl;
 
+import com.tutorial.ticket.domain.QrCodeTicketReference;
+import com.tutorial.ticket.domain.SignedQrCodePayload;
+import com.tutorial.ticket.domain.TicketScan;
+import com.tutorial.ticket.domain.TicketScanError;
+import com.tutorial.ticket.domain.TicketScanResult;
 import com.tutorial.ticket.domain.entities.*;
+import com.tutorial.ticket.exceptions.InvalidQrCodePayloadException;
 import com.tutorial.ticket.exceptions.QrCodeNotFoundException;
 import com.tutorial.ticket.exceptions.TicketNotFoundException;
 import com.tutorial.ticket.repositories.QrCodeRepository;
 import com.tutorial.ticket.repositories.TicketRepository;
 import com.tutorial.ticket.repositories.TicketValidationRepository;
+import com.tutorial.ticket.services.AttendanceStatsService;
+import com.tutorial.ticket.services.QrCodePayloadService;
+import com.tutorial.ticket.services.TicketInventoryService;
 import com.tutorial.ticket.services.TicketValidationService;
+import com.tutorial.ticket.services.ValidationManifestService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
+@Slf4j
 public class TicketValidationServiceImpl implements TicketValidationService {
 
     private final QrCodeRepository qrCodeRepository;
     private final TicketValidationRepository ticketValidationRepository;
     private final TicketRepository ticketRepository;
+    private final QrCodePayloadService qrCodePayloadService;
+    private final ValidationManifestService validationManifestService;
+    private final TicketInventoryService ticketInventoryService;
+    private final AttendanceStatsService attendanceStatsService;
+    private final TransactionTemplate transactionTemplate;
 
+    // Scans for events with a loaded manifest are answered without opening a transaction
     @Override
     public TicketValidation validateTicketByQrCode(UUID qrCodeId) {
-        QrCode qrCode = qrCodeRepository.findByIdAndStatus(qrCodeId, QrCodeStatusEnum.ACTIVE)
+        Optional<TicketValidation> manifestValidation =
+                validationManifestService.validate(qrCodeId, LocalDateTime.now());
+        if(manifestValidation.isPresent()) {
+            return manifestValidation.get();
+        }
+        return transactionTemplate.execute(status -> validateTicketByQrCodeInDatabase(qrCodeId));
+    }
+
+    private TicketValidation validateTicketByQrCodeInDatabase(UUID qrCodeId) {
+        // Resolves ticket and event in one query without loading either
+        QrCodeTicketReference reference = qrCodeRepository.findActiveTicketReferences(List.of(qrCodeId)).stream()
+                .findFirst()
                 .orElseThrow(() -> new QrCodeNotFoundException(
                         String.format(
                                 "QR Code with ID %s was not found", qrCodeId
                         )
                 ));
 
-        Ticket ticket = qrCode.getTicket();
+        Ticket ticket = ticketRepository.getReferenceById(reference.getTicketId());
+
+        return validateTicket(ticket, reference.getEventId(), TicketValidationMethod.QR_SCAN);
+    }
+
+    @Override
+    public TicketValidation validateTicketByQrPayload(String payload) {
+        Optional<SignedQrCodePayload> signedPayload = qrCodePayloadService.parse(payload);
+        if(signedPayload.isEmpty()) {
+            return validateTicketByQrCode(parseQrCodeId(payload));
+        }
+
+        // The signature vouches for the IDs, so only the scan itself is recorded
+        SignedQrCodePayload qrCodePayload = signedPayload.get();
+        UUID ticketId = qrCodePayload.getTicketId();
+
+        boolean rejected = qrCodePayload.getExpiresAt().isBefore(Instant.now())
+                || qrCodePayloadService.isRevoked(qrCodePayload.getEventId(), ticketId);
+
+        if(!rejected) {
+            Optional<TicketValidation> manifestValidation =
+                    validationManifestService.validate(qrCodePayload.getQrCodeId(), LocalDateTime.now());
+            if(manifestValidation.isPresent()) {
+                return manifestValidation.get();
+            }
+        }
 
-        return validateTicket(ticket, TicketValidationMethod.QR_SCAN);
+        TicketValidation validation = transactionTemplate.execute(status -> {
+            TicketValidationStatusEnum ticketValidationStatus;
+            if(rejected || ticketRepository.markFirstValidated(ticketId, LocalDateTime.now()) == 0) {
+                ticketValidationStatus = TicketValidationStatusEnum.INVALID;
+            } else {
+                ticketValidationStatus = TicketValidationStatusEnum.VALID;
+            }
+
+            TicketValidation ticketValidation = new TicketValidation();
+            ticketValidation.setTicket(ticketRepository.getReferenceById(ticketId));
+            ticketValidation.setValidationMethod(TicketValidationMethod.QR_SCAN);
+            ticketValidation.setStatus(ticketValidationStatus);
+            ticketValidation.setScannedAt(LocalDateTime.now());
+
+            return ticketValidationRepository.save(ticketValidation);
+        });
+        if(validation.getStatus() == TicketValidationStatusEnum.VALID) {
+            validationManifestService.markValidated(qrCodePayload.getEventId(), ticketId, validation.getScannedAt());
+        }
+        attendanceStatsService.recordScan(
+                qrCodePayload.getEventId(), TicketValidationMethod.QR_SCAN, validation.getStatus()
+        );
+        return validation;
     }
 
+    private static UUID parseQrCodeId(String payload) {
+        try {
+            return UUID.fromString(payload);
+        } catch(IllegalArgumentException ex) {
+            throw new QrCodeNotFoundException(
+                    String.format("QR Code with ID %s was not found", payload)
+            );
+        }
+    }
+
+    // The conditional update lets exactly one concurrent scan through, however often the ticket is scanned
     private TicketValidation validateTicket(Ticket ticket,
+                                            UUID eventId,
                                             TicketValidationMethod ticketValidationMethod) {
         TicketValidation ticketValidation = new TicketValidation();
         ticketValidation.setTicket(ticket);
         ticketValidation.setValidationMethod(ticketValidationMethod);
 
-        TicketValidationStatusEnum ticketValidationStatus = ticket.getValidations().stream()
-                .filter(v -> TicketValidationStatusEnum.VALID.equals(v.getStatus()))
-                .findFirst()
-                .map(v -> TicketValidationStatusEnum.INVALID)
-                .orElse(TicketValidationStatusEnum.VALID);
+        LocalDateTime now = LocalDateTime.now();
+        TicketValidationStatusEnum ticketValidationStatus =
+                ticketRepository.markFirstValidated(ticket.getId(), now) == 1
+                        ? TicketValidationStatusEnum.VALID
+                        : TicketValidationStatusEnum.INVALID;
 
         ticketValidation.setStatus(ticketValidationStatus);
+        ticketValidation.setScannedAt(now);
 
-        return ticketValidationRepository.save(ticketValidation);
+        TicketValidation saved = ticketValidationRepository.save(ticketValidation);
+
+        // Only a committed admission may reach the manifest and the live counts
+        UUID ticketId = ticket.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // A manifest loaded for the event must not let this ticket in a second time
+                if(ticketValidationStatus == TicketValidationStatusEnum.VALID) {
+                    validationManifestService.markValidated(eventId, ticketId, now);
+                }
+                attendanceStatsService.recordScan(eventId, ticketValidationMethod, ticketValidationStatus);
+            }
+        });
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillFirstValidatedAt() {
+        int backfilled = ticketRepository.backfillFirstValidatedAt();
+        if(backfilled > 0) {
+            log.info("Backfilled first validation time for {} tickets", backfilled);
+        }
     }
 
     @Override
+    @Transactional
     public TicketValidation validateTicketManually(UUID ticketId) {
         Ticket ticket = ticketRepository.findById(ticketId)
                 .orElseThrow(TicketNotFoundException::new);
-        return validateTicket(ticket, TicketValidationMethod.MANUAL);
+        UUID eventId = ticketInventoryService.getEventId(ticket.getTicketType().getId());
+        return validateTicket(ticket, eventId, TicketValidationMethod.MANUAL);
+    }
+
+    /**
+     * Decides a batch of offline scans with a handful of set-based queries: one
+     * to resolve QR codes to tickets, one conditional update claiming the
+     * tickets not yet let in, and one batched insert. Scans are applied in the order they happened,
+     * not the order they were sent, so the first scan of a ticket wins.
+     */
+    @Override
+    public List<TicketScanResult> validateTicketScans(List<TicketScan> scans) {
+        TicketScanResult[] results = new TicketScanResult[scans.size()];
+        List<ResolvedScan> resolvedScans = new ArrayList<>(scans.size());
+        for(int i = 0; i < scans.size(); i++) {
+            ResolvedScan resolvedScan = resolveScan(i, scans.get(i), results);
+            if(resolvedScan != null) {
+                resolvedScans.add(resolvedScan);
+            }
+        }
+        resolvedScans.sort(Comparator.comparing(ResolvedScan::scannedAt));
+
+        List<ResolvedScan> databaseScans = new ArrayList<>(resolvedScans.size());
+        for(ResolvedScan scan : resolvedScans) {
+            Optional<TicketValidation> manifestValidation = scan.rejected()
+                    ? Optional.empty()
+                    : validationManifestService.validate(scan.qrCodeId(), scan.scannedAt());
+            if(manifestValidation.isPresent()) {
+                TicketValidation ticketValidation = manifestValidation.get();
+                results[scan.index()] = new TicketScanResult(
+                        ticketValidation.getTicket().getId(), ticketValidation.getStatus(), null
+                );
+            } else {
+                databaseScans.add(scan);
+            }
+        }
+
+        if(!databaseScans.isEmpty()) {
+            List<ResolvedScan> decidedScans =
+                    transactionTemplate.execute(status -> validateScansInDatabase(databaseScans, results));
+            // Applied only once the batch has committed
+            for(ResolvedScan scan : decidedScans) {
+                TicketValidationStatusEnum ticketValidationStatus = results[scan.index()].getStatus();
+                if(ticketValidationStatus == TicketValidationStatusEnum.VALID) {
+                    validationManifestService.markValidated(scan.eventId(), scan.ticketId(), scan.scannedAt());
+                }
+                attendanceStatsService.recordScan(scan.eventId(), TicketValidationMethod.QR_SCAN, ticketValidationStatus);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // Returns the scans that were decided, with their ticket and event filled in
+    private List<ResolvedScan> validateScansInDatabase(List<ResolvedScan> scans, TicketScanResult[] results) {
+        Set<UUID> unresolvedQrCodeIds = scans.stream()
+                .filter(scan -> scan.ticketId() == null)
+                .map(ResolvedScan::qrCodeId)
+                .collect(Collectors.toSet());
+        Map<UUID, QrCodeTicketReference> referencesByQrCodeId = unresolvedQrCodeIds.isEmpty()
+                ? Map.of()
+                : qrCodeRepository.findActiveTicketReferences(unresolvedQrCodeIds).stream()
+                        .collect(Collectors.toMap(QrCodeTicketReference::getQrCodeId, Function.identity()));
+
+        List<ResolvedScan> matchedScans = new ArrayList<>(scans.size());
+        for(ResolvedScan scan : scans) {
+            if(scan.ticketId() != null) {
+                matchedScans.add(scan);
+                continue;
+            }
+            QrCodeTicketReference reference = referencesByQrCodeId.get(scan.qrCodeId());
+            if(reference == null) {
+                results[scan.index()] = new TicketScanResult(null, null, TicketScanError.QR_CODE_NOT_FOUND);
+            } else {
+                matchedScans.add(scan.withTicket(reference.getTicketId(), reference.getEventId()));
+            }
+        }
+        if(matchedScans.isEmpty()) {
+            return matchedScans;
+        }
+
+        Set<UUID> ticketIds = matchedScans.stream().map(ResolvedScan::ticketId).collect(Collectors.toSet());
+        // Scans are sorted by time, so the first one seen is when the ticket was let in
+        Map<UUID, LocalDateTime> claimableTicketIds = new HashMap<>();
+        for(ResolvedScan scan : matchedScans) {
+            if(!scan.rejected()) {
+                claimableTicketIds.putIfAbsent(scan.ticketId(), scan.scannedAt());
+            }
+        }
+        Set<UUID> claimedTicketIds = ticketRepository.markFirstValidated(claimableTicketIds);
+        Map<UUID, Ticket> tickets = ticketIds.stream()
+                .collect(Collectors.toMap(Function.identity(), ticketRepository::getReferenceById));
+
+        List<TicketValidation> ticketValidations = new ArrayList<>(matchedScans.size());
+        for(ResolvedScan scan : matchedScans) {
+            // Only the earliest scan of a ticket this batch claimed is VALID
+            TicketValidationStatusEnum ticketValidationStatus =
+                    !scan.rejected() && claimedTicketIds.remove(scan.ticketId())
+                            ? TicketValidationStatusEnum.VALID
+                            : TicketValidationStatusEnum.INVALID;
+
+            TicketValidation ticketValidation = new TicketValidation();
+            ticketValidation.setTicket(tickets.get(scan.ticketId()));
+            ticketValidation.setValidationMethod(TicketValidationMethod.QR_SCAN);
+            ticketValidation.setStatus(ticketValidationStatus);
+            ticketValidation.setScannedAt(scan.scannedAt());
+            ticketValidations.add(ticketValidation);
+
+            results[scan.index()] = new TicketScanResult(scan.ticketId(), ticketValidationStatus, null);
+        }
+
+        // Inserted in JDBC batches of hibernate.jdbc.batch_size
+        ticketValidationRepository.saveAll(ticketValidations);
+        return matchedScans;
+    }
+
+    // Returns null and fills in the result when the scan cannot be read
+    private ResolvedScan resolveScan(int index, TicketScan scan, TicketScanResult[] results) {
+        LocalDateTime scannedAt = scan.getScannedAt() != null ? scan.getScannedAt() : LocalDateTime.now();
+
+        Optional<SignedQrCodePayload> signedPayload;
+        try {
+            signedPayload = qrCodePayloadService.parse(scan.getPayload());
+        } catch(InvalidQrCodePayloadException ex) {
+            results[index] = new TicketScanResult(null, null, TicketScanError.INVALID_PAYLOAD);
+            return null;
+        }
+
+        if(signedPayload.isPresent()) {
+            SignedQrCodePayload qrCodePayload = signedPayload.get();
+            boolean rejected = qrCodePayload.getExpiresAt().isBefore(scannedAt.atZone(ZoneId.systemDefault()).toInstant())
+                    || qrCodePayloadService.isRevoked(qrCodePayload.getEventId(), qrCodePayload.getTicketId());
+            return new ResolvedScan(index, qrCodePayload.getQrCodeId(), qrCodePayload.getTicketId(),
+                    qrCodePayload.getEventId(), scannedAt, rejected);
+        }
+
+        UUID qrCodeId = scan.getId();
+        if(qrCodeId == null && scan.getPayload() != null) {
+            try {
+                qrCodeId = UUID.fromString(scan.getPayload());
+            } catch(IllegalArgumentException ex) {
+                qrCodeId = null;
+            }
+        }
+        if(qrCodeId == null) {
+            results[index] = new TicketScanResult(null, null, TicketScanError.QR_CODE_NOT_FOUND);
+            return null;
+        }
+        return new ResolvedScan(index, qrCodeId, null, null, scannedAt, false);
+    }
+
+    private record ResolvedScan(int index,
+                                UUID qrCodeId,
+                                UUID ticketId,
+                                UUID eventId,
+                                LocalDateTime scannedAt,
+                                boolean rejected) {
+
+        private ResolvedScan withTicket(UUID ticketId, UUID eventId) {
+            return new ResolvedScan(index, qrCodeId, ticketId, eventId, scannedAt, rejected);
+        }
     }
 }
@@ -0,0 +1,219 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import com.tutorial.ticket.repositories.TicketRepository;
+import com.tutorial.ticket.util.MappedRecordLog;
+import com.tutorial.ticket.util.UuidV7;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Write-behind log for validation rows decided in memory. Each row is appended
+ * to a local memory-mapped journal before the scan is answered, and a
+ * background flush copies the journal into ticket_validation in JDBC batches.
+ * Rows carry their own ID and are inserted with ON CONFLICT DO NOTHING, so
+ * replaying the journal after a crash never duplicates a row. Tickets are
+ * claimed through {@link TicketRepository#markFirstValidated(Map)} like every
+ * other admission; a VALID row whose ticket was let in elsewhere first is
+ * written as INVALID.
+ */
+@Component
+@Slf4j
+public class ValidationJournal {
+
+    private static final int RECORD_SIZE = 16 + 16 + 8 + 1 + 1;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO ticket_validation (id, status, validation_method, ticket_id, scanned_at, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (id) DO NOTHING
+    """;
+
+    // Stored by ordinal; only ever add new constants at the end of these enums
+    private static final TicketValidationStatusEnum[] STATUSES = TicketValidationStatusEnum.values();
+    private static final TicketValidationMethod[] METHODS = TicketValidationMethod.values();
+
+    /**
+     * When appended records are forced to disk: before the scan is answered,
+     * on each background flush, or whenever the OS writes the pages back.
+     */
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, NEVER
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TicketRepository ticketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final FsyncPolicy fsyncPolicy;
+    private final int batchSize;
+    private final MappedRecordLog journal;
+
+    public ValidationJournal(
+            JdbcTemplate jdbcTemplate,
+            TicketRepository ticketRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${ticket.validation.journal.enabled:false}") boolean enabled,
+            @Value("${ticket.validation.journal.directory:data/validation-journal}") String directory,
+            @Value("${ticket.validation.journal.segment-records:1048576}") int segmentRecords,
+            @Value("${ticket.validation.journal.fsync:interval}") String fsyncPolicy,
+            @Value("${ticket.validation.journal.batch-size:1000}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ticketRepository = ticketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.fsyncPolicy = FsyncPolicy.valueOf(fsyncPolicy.toUpperCase(Locale.ROOT));
+        this.batchSize = batchSize;
+        this.journal = enabled ? new MappedRecordLog(Path.of(directory), RECORD_SIZE, segmentRecords) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(UUID ticketId,
+                       TicketValidationStatusEnum status,
+                       TicketValidationMethod method,
+                       LocalDateTime scannedAt) {
+        UUID id = UuidV7.generate();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putLong(ticketId.getMostSignificantBits())
+                .putLong(ticketId.getLeastSignificantBits())
+                .putLong(scannedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .put((byte) status.ordinal())
+                .put((byte) method.ordinal())
+                .flip();
+
+        long position = journal.append(record);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            journal.force(position);
+        }
+    }
+
+    // Whatever a previous run appended but did not flush is written first
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        if (!enabled) {
+            return;
+        }
+        long pending = journal.getAppendPosition() - journal.getCommittedPosition();
+        if (pending > 0) {
+            log.info("Replaying {} ticket validations from the journal", pending);
+        }
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.validation.journal.flush-ms:100}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            journal.force();
+        }
+
+        while (true) {
+            List<JournalEntry> entries = new ArrayList<>(batchSize);
+            long end = journal.read(journal.getCommittedPosition(), batchSize, record -> entries.add(decode(record)));
+            if (entries.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(entries));
+            } catch (RuntimeException ex) {
+                // The journal keeps the rows; the next flush starts from the same place
+                log.warn("Failed to flush {} ticket validations from the journal", entries.size(), ex);
+                return;
+            }
+            journal.commit(end);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    private void insert(List<JournalEntry> entries) {
+        List<JournalEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(JournalEntry::scannedAt));
+
+        // Keeps the database path from letting these tickets in a second time
+        Map<UUID, LocalDateTime> validTicketIds = new HashMap<>();
+        for (JournalEntry entry : sorted) {
+            if (entry.status() == TicketValidationStatusEnum.VALID) {
+                validTicketIds.putIfAbsent(entry.ticketId(), entry.scannedAt());
+            }
+        }
+        Set<UUID> claimedTicketIds = ticketRepository.markFirstValidated(validTicketIds);
+
+        List<JournalEntry> rows = new ArrayList<>(sorted.size());
+        for (JournalEntry entry : sorted) {
+            // A replayed row that was already written is skipped by ON CONFLICT whatever its status
+            boolean unclaimed = entry.status() == TicketValidationStatusEnum.VALID
+                    && !claimedTicketIds.remove(entry.ticketId());
+            rows.add(unclaimed ? entry.withStatus(TicketValidationStatusEnum.INVALID) : entry);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (statement, entry) -> {
+            statement.setObject(1, entry.id());
+            statement.setString(2, entry.status().name());
+            statement.setString(3, entry.method().name());
+            statement.setObject(4, entry.ticketId());
+            statement.setObject(5, entry.scannedAt());
+            statement.setObject(6, now);
+            statement.setObject(7, now);
+        });
+    }
+
+    private static JournalEntry decode(ByteBuffer record) {
+        UUID id = new UUID(record.getLong(), record.getLong());
+        UUID ticketId = new UUID(record.getLong(), record.getLong());
+        LocalDateTime scannedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getLong()), ZoneId.systemDefault());
+        TicketValidationStatusEnum status = STATUSES[record.get()];
+        TicketValidationMethod method = METHODS[record.get()];
+        return new JournalEntry(id, ticketId, status, method, scannedAt);
+    }
+
+    private record JournalEntry(UUID id,
+                                UUID ticketId,
+                                TicketValidationStatusEnum status,
+                                TicketValidationMethod method,
+                                LocalDateTime scannedAt) {
+
+        private JournalEntry withStatus(TicketValidationStatusEnum status) {
+            return new JournalEntry(id, ticketId, status, method, scannedAt);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.tutorial.ticket.services.impl;
+
+import com.tutorial.ticket.domain.TicketFirstValidation;
+import com.tutorial.ticket.domain.ValidationManifestEntry;
+import com.tutorial.ticket.domain.entities.Ticket;
+import com.tutorial.ticket.domain.entities.TicketValidation;
+import com.tutorial.ticket.domain.entities.TicketValidationMethod;
+import com.tutorial.ticket.domain.entities.TicketValidationStatusEnum;
+import com.tutorial.ticket.repositories.EventRepository;
+import com.tutorial.ticket.repositories.QrCodeRepository;
+import com.tutorial.ticket.repositories.TicketRepository;
+import com.tutorial.ticket.repositories.TicketValidationRepository;
+import com.tutorial.ticket.services.AttendanceStatsService;
+import com.tutorial.ticket.services.ValidationManifestService;
+import com.tutorial.ticket.util.ValidationManifest;
+import com.tutorial.ticket.util.ValidationStateFile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link ValidationManifest} per event in memory around door time, so
+ * a QR scan is a hash probe and a CAS rather than three queries. Validation
+ * rows are queued and written in batches by a scheduled flush, or appended to
+ * the durable {@link ValidationJournal} when it is enabled. A row that keeps
+ * failing is set aside and retried on its own so it cannot hold up the queue.
+ *
+ * <p>With state files enabled each manifest's scan state is mirrored in a
+ * memory-mapped {@link ValidationStateFile}; manifests with a state file are
+ * reloaded at startup with exactly the tickets this node had let in. Tickets
+ * validated elsewhere are merged in from the database in the background, and
+ * admissions the file has but the database lacks are queued to be written.
+ *
+ * <p>Decisions are local to this node: an event's scanners should be routed to
+ * one node while its manifest is loaded. Tickets bought after the manifest was
+ * loaded are not in it and go through the database path as before. Admissions
+ * made through the database path on this node are applied at once; cancelled
+ * tickets and expired QR codes are revoked on the next reconcile.
+ */
+@Service
+@Slf4j
+public class ValidationManifestServiceImpl implements ValidationManifestService {
+
+    private static final String STATE_FILE_SUFFIX = ".state";
+
+    private final QrCodeRepository qrCodeRepository;
+    private final EventRepository eventRepository;
+    private final TicketRepository ticketRepository;
+    private final TicketValidationRepository ticketValidationRepository;
+    private final ValidationJournal validationJournal;
+    private final AttendanceStatsService attendanceStatsService;
+    private final TransactionTemplate loadTransactionTemplate;
+    private final TransactionTemplate writeTransactionTemplate;
+    private final boolean autoLoad;
+    private final Duration preloadBefore;
+    private final int writeBatchSize;
+    private final int maxWriteAttempts;
+    private final Path stateDirectory;
+    private final Duration reconcileOverlap;
+
+    private final Map<UUID, LoadedManifest> manifests = new ConcurrentHashMap<>();
+    // Only manifests the preload loaded are unloaded by it
+    private final Set<UUID> autoLoadedEventIds = ConcurrentHashMap.newKeySet();
+    private final Queue<PendingValidation> pendingValidations = new ConcurrentLinkedQueue<>();
+    // Rows that kept failing; retried one at a time so they cannot hold up the queue
+    private final Queue<PendingValidation> deadLetterValidations = new ConcurrentLinkedQueue<>();
+
+    public ValidationManifestServiceImpl(
+            QrCodeRepository qrCodeRepository,
+            EventRepository eventRepository,
+            TicketRepository ticketRepository,
+            TicketValidationRepository ticketValidationRepository,
+            ValidationJournal validationJournal,
+            AttendanceStatsService attendanceStatsService,
+            PlatformTransactionManager transactionManager,
+            @Value("${ticket.validation.manifest.auto-load:false}") boolean autoLoad,
+            @Value("${ticket.validation.manifest.preload-before-ms:7200000}") long preloadBeforeMillis,
+            @Value("${ticket.validation.manifest.write-batch-size:500}") int writeBatchSize,
+            @Value("${ticket.validation.manifest.max-write-attempts:5}") int maxWriteAttempts,
+            @Value("${ticket.validation.manifest.state.enabled:false}") boolean stateEnabled,
+            @Value("${ticket.validation.manifest.state.directory:data/validation-state}") String stateDirectory,
+            @Value("${ticket.validation.manifest.reconcile-overlap-ms:5000}") long reconcileOverlapMillis
+    ) {
+        this.qrCodeRepository = qrCodeRepository;
+        this.eventRepository = eventRepository;
+        this.ticketRepository = ticketRepository;
+        this.ticketValidationRepository = ticketValidationRepository;
+        this.validationJournal = validationJournal;
+        this.attendanceStatsService = attendanceStatsService;
+        this.autoLoad = autoLoad;
+        this.preloadBefore = Duration.ofMillis(preloadBeforeMillis);
+        this.writeBatchSize = writeBatchSize;
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.stateDirectory = stateEnabled ? Path.of(stateDirectory) : null;
+        this.reconcileOverlap = Duration.ofMillis(reconcileOverlapMillis);
+
+        // The count and the rows must come from the same snapshot to size the table
+        this.loadTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.loadTransactionTemplate.setReadOnly(true);
+        this.loadTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTransactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // A manifest loaded on request stays until it is unloaded on request
+    @Override
+    public synchronized void loadManifest(UUID eventId) {
+        autoLoadedEventIds.remove(eventId);
+        load(eventId);
+    }
+
+    // Serialised so two loads of one event never write its state file at the same time
+    private synchronized boolean load(UUID eventId) {
+        if (manifests.containsKey(eventId)) {
+            return false;
+        }
+
+        LocalDateTime loadedAt = LocalDateTime.now();
+        ValidationManifest manifest = loadTransactionTemplate.execute(status -> {
+            long count = qrCodeRepository.countManifestEntries(eventId);
+            ValidationManifest loaded = new ValidationManifest(Math.toIntExact(count));
+            try (Stream<ValidationManifestEntry> entries = qrCodeRepository.streamManifestEntries(eventId)) {
+                entries.forEach(entry -> loaded.add(
+                        entry.getQrCodeId(), entry.getTicketId(), toEpochMillis(entry.getFirstValidatedAt())
+                ));
+            }
+            return loaded;
+        });
+
+        // Scans this node made before a restart may not have reached the database yet
+        ValidationStateFile stateFile = null;
+        if (stateDirectory != null) {
+            Path statePath = statePath(eventId);
+            List<PendingValidation> unwritten = new ArrayList<>();
+            ValidationStateFile.readValidated(statePath).forEach((ticketId, validatedAt) -> {
+                int ticketIndex = manifest.findTicketIndex(
+                        ticketId.getMostSignificantBits(), ticketId.getLeastSignificantBits()
+                );
+                if (ticketIndex >= 0 && manifest.markValidated(ticketIndex, validatedAt)) {
+                    unwritten.add(new PendingValidation(
+                            ticketId, TicketValidationStatusEnum.VALID, toLocalDateTime(validatedAt)
+                    ));
+                }
+            });
+            stateFile = ValidationStateFile.create(statePath, manifest);
+
+            // The journal replays its own rows; without it the queue they were in died with the process
+            if (!unwritten.isEmpty() && !validationJournal.isEnabled()) {
+                log.warn("Writing {} admissions for event {} that were lost from the write queue",
+                        unwritten.size(), eventId);
+                pendingValidations.addAll(unwritten);
+            }
+        }
+
+        manifests.put(eventId, new LoadedManifest(manifest, stateFile, loadedAt));
+        log.info("Loaded validation manifest for event {} with {} tickets", eventId, manifest.getTicketCount());
+        return true;
+    }
+
+    @Override
+    public synchronized void unloadManifest(UUID eventId) {
+        autoLoadedEventIds.remove(eventId);
+        LoadedManifest loaded = manifests.remove(eventId);
+        if (loaded == null) {
+            return;
+        }
+        if (loaded.stateFile != null) {
+            loaded.stateFile.close();
+            try {
+                Files.deleteIfExists(statePath(eventId));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        log.info("Unloaded validation manifest for event {}", eventId);
+    }
+
+    @Override
+    public boolean isLoaded(UUID eventId) {
+        return manifests.containsKey(eventId);
+    }
+
+    @Override
+    public Optional<TicketValidation> validate(UUID qrCodeId, LocalDateTime scannedAt) {
+        long mostSigBits = qrCodeId.getMostSignificantBits();
+        long leastSigBits = qrCodeId.getLeastSignificantBits();
+
+        for (Map.Entry<UUID, LoadedManifest> entry : manifests.entrySet()) {
+            LoadedManifest loaded = entry.getValue();
+            ValidationManifest manifest = loaded.manifest;
+            int ticketIndex = manifest.findTicket(mostSigBits, leastSigBits);
+            if (ticketIndex < 0) {
+                continue;
+            }
+
+            TicketValidationStatusEnum status = TicketValidationStatusEnum.INVALID;
+            long scannedAtMillis = toEpochMillis(scannedAt);
+            if (!manifest.isRevoked(ticketIndex) && manifest.markValidated(ticketIndex, scannedAtMillis)) {
+                status = TicketValidationStatusEnum.VALID;
+                if (loaded.stateFile != null) {
+                    loaded.stateFile.markValidated(ticketIndex, scannedAtMillis);
+                }
+            }
+            UUID ticketId = manifest.getTicketId(ticketIndex);
+            if (validationJournal.isEnabled()) {
+                validationJournal.append(ticketId, status, TicketValidationMethod.QR_SCAN, scannedAt);
+            } else {
+                pendingValidations.add(new PendingValidation(ticketId, status, scannedAt));
+            }
+            attendanceStatsService.recordScan(entry.getKey(), TicketValidationMethod.QR_SCAN, status);
+
+            Ticket ticket = new Ticket();
+            ticket.setId(ticketId);
+            TicketValidation ticketValidation = new TicketValidation();
+            ticketValidation.setTicket(ticket);
+            ticketValidation.setValidationMethod(TicketValidationMethod.QR_SCAN);
+            ticketValidation.setStatus(status);
+            ticketValidation.setScannedAt(scannedAt);
+            return Optional.of(ticketValidation);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void markValidated(UUID eventId, UUID ticketId, LocalDateTime validatedAt) {
+        LoadedManifest loaded = manifests.get(eventId);
+        if (loaded != null) {
+            markValidated(loaded, ticketId, toEpochMillis(validatedAt));
+        }
+    }
+
+    @Override
+    public void revokeTicket(UUID eventId, UUID ticketId) {
+        LoadedManifest loaded = manifests.get(eventId);
+        if (loaded == null) {
+            return;
+        }
+        int ticketIndex = loaded.manifest.findTicketIndex(
+                ticketId.getMostSignificantBits(), ticketId.getLeastSignificantBits()
+        );
+        if (ticketIndex >= 0) {
+            loaded.manifest.revoke(ticketIndex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.validation.manifest.flush-ms:200}")
+    public void flushPendingValidations() {
+        List<PendingValidation> batch = new ArrayList<>(writeBatchSize);
+        PendingValidation pending;
+        while ((pending = pendingValidations.poll()) != null) {
+            batch.add(pending);
+            if (batch.size() == writeBatchSize) {
+                if (!writeBatch(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(writeBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${ticket.validation.manifest.reconcile-ms:10000}",
+            fixedDelayString = "${ticket.validation.manifest.reconcile-ms:10000}"
+    )
+    public void reconcileWithDatabase() {
+        for (Map.Entry<UUID, LoadedManifest> entry : manifests.entrySet()) {
+            LoadedManifest loaded = entry.getValue();
+            LocalDateTime startedAt = LocalDateTime.now();
+            try {
+                LocalDateTime since = loaded.reconciledAt.minus(reconcileOverlap);
+                for (TicketFirstValidation validation : ticketRepository.findValidatedSince(entry.getKey(), since)) {
+                    markValidated(loaded, validation.getTicketId(), toEpochMillis(validation.getFirstValidatedAt()));
+                }
+                for (UUID ticketId : qrCodeRepository.findRevokedTicketIdsSince(entry.getKey(), since)) {
+                    revokeTicket(entry.getKey(), ticketId);
+                }
+                loaded.reconciledAt = startedAt;
+            } catch (RuntimeException ex) {
+                log.warn("Failed to reconcile validation manifest for event {}", entry.getKey(), ex);
+            }
+        }
+    }
+
+    // Picks up the events this node was scanning before it restarted
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeFromStateFiles() {
+        if (stateDirectory == null || !Files.isDirectory(stateDirectory)) {
+            return;
+        }
+
+        List<UUID> eventIds;
+        try (Stream<Path> files = Files.list(stateDirectory)) {
+            eventIds = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(STATE_FILE_SUFFIX))
+                    .map(name -> UUID.fromString(name.substring(0, name.length() - STATE_FILE_SUFFIX.length())))
+                    .toList();
+        } catch (IOException ex) {
+            log.error("Failed to list validation state files in {}", stateDirectory, ex);
+            return;
+        }
+
+        for (UUID eventId : eventIds) {
+            try {
+                load(eventId);
+            } catch (RuntimeException ex) {
+                log.error("Failed to resume validation manifest for event {}", eventId, ex);
+            }
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${ticket.validation.manifest.preload-check-ms:60000}",
+            fixedDelayString = "${ticket.validation.manifest.preload-check-ms:60000}"
+    )
+    public void preloadUpcomingEvents() {
+        if (!autoLoad) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<UUID> upcoming = new HashSet<>(
+                eventRepository.findUpcomingPublishedEventIds(now, now.plus(preloadBefore))
+        );
+        for (UUID eventId : upcoming) {
+            try {
+                synchronized (this) {
+                    if (load(eventId)) {
+                        autoLoadedEventIds.add(eventId);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                log.error("Failed to load validation manifest for event {}", eventId, ex);
+            }
+        }
+        autoLoadedEventIds.stream()
+                .filter(eventId -> !upcoming.contains(eventId))
+                .toList()
+                .forEach(this::unloadManifest);
+    }
+
+    @Scheduled(
+            initialDelayString = "${ticket.validation.manifest.dead-letter-retry-ms:60000}",
+            fixedDelayString = "${ticket.validation.manifest.dead-letter-retry-ms:60000}"
+    )
+    public void retryDeadLetterValidations() {
+        int remaining = deadLetterValidations.size();
+        PendingValidation pending;
+        while (remaining-- > 0 && (pending = deadLetterValidations.poll()) != null) {
+            try {
+                writeValidations(List.of(pending));
+                log.info("Wrote dead-lettered validation of ticket {} scanned at {}",
+                        pending.ticketId(), pending.scannedAt());
+            } catch (RuntimeException ex) {
+                deadLetterValidations.add(pending);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPendingValidations();
+        manifests.values().stream()
+                .filter(loaded -> loaded.stateFile != null)
+                .forEach(loaded -> loaded.stateFile.close());
+    }
+
+    private boolean writeBatch(List<PendingValidation> batch) {
+        try {
+            writeValidations(batch);
+            return true;
+        } catch (RuntimeException ex) {
+            // The scans have already been answered; keep the rows and retry on the next flush
+            log.error("Failed to write {} ticket validations, retrying", batch.size(), ex);
+            for (PendingValidation pending : batch) {
+                if (pending.attempts() + 1 < maxWriteAttempts) {
+                    pendingValidations.add(pending.retried());
+                } else {
+                    log.error("Dead-lettering validation of ticket {} ({}) scanned at {} after {} failed writes",
+                            pending.ticketId(), pending.status(), pending.scannedAt(), maxWriteAttempts);
+                    deadLetterValidations.add(pending);
+                }
+            }
+            return false;
+        }
+    }
+
+    private void writeValidations(List<PendingValidation> validations) {
+        List<PendingValidation> batch = new ArrayList<>(validations);
+        batch.sort(Comparator.comparing(PendingValidation::scannedAt));
+        writeTransactionTemplate.executeWithoutResult(status -> {
+            // Keeps the database path from letting these tickets in a second time
+            Map<UUID, LocalDateTime> validTicketIds = new HashMap<>();
+            for (PendingValidation pending : batch) {
+                if (pending.status() == TicketValidationStatusEnum.VALID) {
+                    validTicketIds.putIfAbsent(pending.ticketId(), pending.scannedAt());
+                }
+            }
+            Set<UUID> claimedTicketIds = ticketRepository.markFirstValidated(validTicketIds);
+
+            List<TicketValidation> ticketValidations = new ArrayList<>(batch.size());
+            for (PendingValidation pending : batch) {
+                // A ticket another node or the database path let in first gets no second VALID row
+                TicketValidationStatusEnum ticketValidationStatus =
+                        pending.status() == TicketValidationStatusEnum.VALID && claimedTicketIds.remove(pending.ticketId())
+                                ? TicketValidationStatusEnum.VALID
+                                : TicketValidationStatusEnum.INVALID;
+
+                TicketValidation ticketValidation = new TicketValidation();
+                ticketValidation.setTicket(ticketRepository.getReferenceById(pending.ticketId()));
+                ticketValidation.setValidationMethod(TicketValidationMethod.QR_SCAN);
+                ticketValidation.setStatus(ticketValidationStatus);
+                ticketValidation.setScannedAt(pending.scannedAt());
+                ticketValidations.add(ticketValidation);
+            }
+            ticketValidationRepository.saveAll(ticketValidations);
+        });
+    }
+
+    private static void markValidated(LoadedManifest loaded, UUID ticketId, long validatedAt) {
+        int ticketIndex = loaded.manifest.findTicketIndex(
+                ticketId.getMostSignificantBits(), ticketId.getLeastSignificantBits()
+        );
+        if (ticketIndex >= 0 && loaded.manifest.markValidated(ticketIndex, validatedAt)
+                && loaded.stateFile != null) {
+            loaded.stateFile.markValidated(ticketIndex, validatedAt);
+        }
+    }
+
+    private Path statePath(UUID eventId) {
+        return stateDirectory.resolve(eventId + STATE_FILE_SUFFIX);
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class LoadedManifest {
+
+        private final ValidationManifest manifest;
+        private final ValidationStateFile stateFile;
+        private volatile LocalDateTime reconciledAt;
+
+        private LoadedManifest(ValidationManifest manifest, ValidationStateFile stateFile, LocalDateTime reconciledAt) {
+            this.manifest = manifest;
+            this.stateFile = stateFile;
+            this.reconciledAt = reconciledAt;
+        }
+    }
+
+    private record PendingValidation(UUID ticketId,
+                                     TicketValidationStatusEnum status,
+                                     LocalDateTime scannedAt,
+                                     int attempts) {
+
+        private PendingValidation(UUID ticketId, TicketValidationStatusEnum status, LocalDateTime scannedAt) {
+            this(ticketId, status, scannedAt, 0);
+        }
+
+        private PendingValidation retried() {
+            return new PendingValidation(ticketId, status, scannedAt, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.tutorial.ticket.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel: every deadline lands in one of {@code wheelSize} buckets
+ * and is looked at again only when the wheel reaches that bucket, so scheduling,
+ * cancelling and expiring a timeout are all O(1) however many are pending.
+ *
+ * <p>{@link #schedule} and {@link Timeout#cancel} may be called from any thread;
+ * {@link #advance} must only be called from a single thread.
+ */
+public final class HashedTimingWheel<K> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final List<List<Timeout<K>>> buckets;
+    private final Queue<Timeout<K>> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private long tick;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    public Timeout<K> schedule(K key, long deadlineMillis) {
+        Timeout<K> timeout = new Timeout<>(key, deadlineMillis);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the keys of every
+     * timeout that fell due on the way, skipping cancelled ones.
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+
+        while (tick <= targetTick) {
+            transferPendingTimeouts();
+
+            List<Timeout<K>> bucket = buckets.get((int) (tick & mask));
+            List<Timeout<K>> remaining = new ArrayList<>();
+            for (Timeout<K> timeout : bucket) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                if (timeout.remainingRounds <= 0) {
+                    expired.add(timeout.key);
+                } else {
+                    timeout.remainingRounds--;
+                    remaining.add(timeout);
+                }
+            }
+            buckets.set((int) (tick & mask), remaining);
+            tick++;
+        }
+
+        return expired;
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout<K> timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            // Deadlines already in the past go into the bucket processed next
+            long deadlineTick = Math.max((timeout.deadlineMillis - startMillis) / tickMillis, tick);
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    public static final class Timeout<K> {
+
+        private final K key;
+        private final long deadlineMillis;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(K key, long deadlineMillis) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
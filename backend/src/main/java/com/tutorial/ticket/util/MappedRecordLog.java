@@ -0,0 +1,236 @@
+package com.tutorial.ticket.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of fixed-size records in memory-mapped segment files. Each
+ * record is followed by a CRC32, so a torn write at the tail is detected and
+ * dropped when the log is reopened. Records are addressed by a position that
+ * counts records from the start of the log; a checkpoint file remembers how
+ * far a consumer got, and segments behind it are deleted.
+ *
+ * <p>Appends may come from any thread; reading and committing are meant for a
+ * single consumer thread.
+ */
+public final class MappedRecordLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int recordSize;
+    private final int slotSize;
+    private final long recordsPerSegment;
+
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private final CRC32 appendCrc = new CRC32();
+    private final CRC32 readCrc = new CRC32();
+
+    private volatile long appendPosition;
+    private volatile long committedPosition;
+
+    public MappedRecordLog(Path directory, int recordSize, int recordsPerSegment) {
+        this.directory = directory;
+        this.recordSize = recordSize;
+        this.slotSize = recordSize + 4;
+        this.recordsPerSegment = recordsPerSegment;
+
+        try {
+            Files.createDirectories(directory);
+            this.committedPosition = readCheckpoint();
+            this.appendPosition = recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open record log in " + directory, ex);
+        }
+    }
+
+    /**
+     * Writes one record of exactly {@code recordSize} bytes.
+     *
+     * @return the position of the record
+     */
+    public synchronized long append(ByteBuffer record) {
+        if (record.remaining() != recordSize) {
+            throw new IllegalArgumentException("Record must be " + recordSize + " bytes");
+        }
+
+        long position = appendPosition;
+        MappedByteBuffer segment = segment(position / recordsPerSegment);
+        int offset = (int) (position % recordsPerSegment) * slotSize;
+
+        appendCrc.reset();
+        appendCrc.update(record.duplicate());
+        segment.put(offset, record, record.position(), recordSize);
+        segment.putInt(offset + recordSize, (int) appendCrc.getValue());
+
+        // Publishes the record to the consumer thread
+        appendPosition = position + 1;
+        return position;
+    }
+
+    // Forces records up to the current append position to disk
+    public void force() {
+        List<MappedByteBuffer> dirty;
+        synchronized (this) {
+            dirty = new ArrayList<>(segments.tailMap(committedPosition / recordsPerSegment).values());
+        }
+        dirty.forEach(MappedByteBuffer::force);
+    }
+
+    public synchronized void force(long position) {
+        MappedByteBuffer segment = segments.get(position / recordsPerSegment);
+        if (segment != null) {
+            segment.force((int) (position % recordsPerSegment) * slotSize, slotSize);
+        }
+    }
+
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    public long getAppendPosition() {
+        return appendPosition;
+    }
+
+    /**
+     * Hands up to {@code max} records after the committed position to the
+     * reader, each as a read-only buffer of {@code recordSize} bytes.
+     *
+     * @return the position after the last record read
+     */
+    public long read(long from, int max, Consumer<ByteBuffer> reader) {
+        long end = Math.min(appendPosition, from + max);
+        long sequence = -1;
+        MappedByteBuffer segment = null;
+        for (long position = from; position < end; position++) {
+            if (position / recordsPerSegment != sequence) {
+                sequence = position / recordsPerSegment;
+                synchronized (this) {
+                    segment = segments.get(sequence);
+                }
+            }
+            int offset = (int) (position % recordsPerSegment) * slotSize;
+            reader.accept(segment.slice(offset, recordSize).asReadOnlyBuffer());
+        }
+        return end;
+    }
+
+    /**
+     * Records that everything before {@code position} has been consumed and
+     * deletes segments that lie entirely before it.
+     */
+    public void commit(long position) {
+        try {
+            Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(8).putLong(position).array());
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committedPosition = position;
+
+            long firstLiveSegment = position / recordsPerSegment;
+            List<Long> consumed;
+            synchronized (this) {
+                consumed = new ArrayList<>(segments.headMap(firstLiveSegment).keySet());
+                consumed.forEach(segments::remove);
+            }
+            for (Long sequence : consumed) {
+                Files.deleteIfExists(segmentPath(sequence));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write checkpoint in " + directory, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(MappedByteBuffer::force);
+        segments.clear();
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong();
+    }
+
+    // Maps the existing segments and finds the first slot without a valid record
+    private long recover() throws IOException {
+        List<Long> sequences;
+        try (Stream<Path> files = Files.list(directory)) {
+            sequences = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+
+        long firstLiveSegment = committedPosition / recordsPerSegment;
+        for (Long sequence : sequences) {
+            if (sequence < firstLiveSegment) {
+                Files.deleteIfExists(segmentPath(sequence));
+            } else {
+                segment(sequence);
+            }
+        }
+
+        long position = committedPosition;
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.entrySet()) {
+            long first = Math.max(position, entry.getKey() * recordsPerSegment);
+            long last = (entry.getKey() + 1) * recordsPerSegment;
+            for (position = first; position < last; position++) {
+                if (!isValid(entry.getValue(), (int) (position % recordsPerSegment) * slotSize)) {
+                    return position;
+                }
+            }
+        }
+        return position;
+    }
+
+    private boolean isValid(MappedByteBuffer segment, int offset) {
+        readCrc.reset();
+        readCrc.update(segment.slice(offset, recordSize));
+        return segment.getInt(offset + recordSize) == (int) readCrc.getValue();
+    }
+
+    // Maps the segment, creating its file if needed; callers hold the lock
+    private MappedByteBuffer segment(long sequence) {
+        MappedByteBuffer segment = segments.get(sequence);
+        if (segment != null) {
+            return segment;
+        }
+
+        try (FileChannel channel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, recordsPerSegment * slotSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map segment " + sequence + " in " + directory, ex);
+        }
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%019d%s", sequence, SEGMENT_SUFFIX));
+    }
+}
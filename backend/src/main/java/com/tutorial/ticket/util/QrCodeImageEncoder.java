@@ -0,0 +1,184 @@
+package com.tutorial.ticket.util;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a ZXing {@link BitMatrix} of QR modules (one bit per module, as
+ * returned when encoding at size 0) straight to a 1-bit grayscale PNG or an SVG.
+ * Modules are scaled up while writing, so no raster image is ever built; the
+ * scanline and deflate buffers are kept per thread and reused. The deflater
+ * itself is ended after every image, since its native memory is not freed
+ * until {@link Deflater#end()} and a per-thread one would never be.
+ */
+public final class QrCodeImageEncoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<PngBuffers> BUFFERS = ThreadLocal.withInitial(PngBuffers::new);
+
+    private QrCodeImageEncoder() {
+    }
+
+    /**
+     * Encodes the modules as a square PNG of {@code size} pixels (or the module
+     * count if that is larger), centred like ZXing's own renderer does.
+     */
+    public static byte[] toPng(BitMatrix modules, int size) {
+        int moduleCount = modules.getWidth();
+        int imageSize = Math.max(size, moduleCount);
+        int scale = imageSize / moduleCount;
+        int offset = (imageSize - moduleCount * scale) / 2;
+
+        // Filter byte plus one bit per pixel; 1 is white in 1-bit grayscale
+        int rowLength = 1 + (imageSize + 7) / 8;
+        PngBuffers buffers = BUFFERS.get();
+        byte[] raw = buffers.raw(rowLength * imageSize);
+
+        byte[] blankRow = new byte[rowLength];
+        Arrays.fill(blankRow, 1, rowLength, (byte) 0xFF);
+
+        int position = 0;
+        for (int y = 0; y < imageSize; ) {
+            int moduleY = y - offset;
+            if (moduleY < 0 || moduleY >= moduleCount * scale) {
+                System.arraycopy(blankRow, 0, raw, position, rowLength);
+                position += rowLength;
+                y++;
+                continue;
+            }
+
+            // Build the scanline for this module row once and repeat it scale times
+            int rowStart = position;
+            System.arraycopy(blankRow, 0, raw, rowStart, rowLength);
+            int matrixY = moduleY / scale;
+            for (int matrixX = 0; matrixX < moduleCount; matrixX++) {
+                if (modules.get(matrixX, matrixY)) {
+                    int start = offset + matrixX * scale;
+                    for (int x = start; x < start + scale; x++) {
+                        raw[rowStart + 1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                    }
+                }
+            }
+            position += rowLength;
+            y++;
+
+            for (int repeat = 1; repeat < scale && y < imageSize; repeat++, y++) {
+                System.arraycopy(raw, rowStart, raw, position, rowLength);
+                position += rowLength;
+            }
+        }
+
+        byte[] compressed = buffers.deflate(raw, position);
+        int compressedLength = buffers.deflatedLength;
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, imageSize);
+        writeInt(header, 4, imageSize);
+        header[8] = 1; // bit depth
+        header[9] = 0; // grayscale
+
+        byte[] png = new byte[PNG_SIGNATURE.length + (12 + header.length) + (12 + compressedLength) + 12];
+        System.arraycopy(PNG_SIGNATURE, 0, png, 0, PNG_SIGNATURE.length);
+        int offsetInPng = PNG_SIGNATURE.length;
+        offsetInPng = writeChunk(png, offsetInPng, IHDR, header, header.length, buffers.crc);
+        offsetInPng = writeChunk(png, offsetInPng, IDAT, compressed, compressedLength, buffers.crc);
+        writeChunk(png, offsetInPng, IEND, header, 0, buffers.crc);
+        return png;
+    }
+
+    /**
+     * Encodes the modules as an SVG of {@code size} pixels; each run of dark
+     * modules in a row becomes one rectangle in a single path.
+     */
+    public static String toSvg(BitMatrix modules, int size) {
+        int moduleCount = modules.getWidth();
+        StringBuilder svg = new StringBuilder(moduleCount * moduleCount * 2);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(moduleCount).append(' ').append(moduleCount)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+
+        for (int y = 0; y < moduleCount; y++) {
+            int x = 0;
+            while (x < moduleCount) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+
+                int runStart = x;
+                while (x < moduleCount && modules.get(x, y)) {
+                    x++;
+                }
+                int run = x - runStart;
+                svg.append('M').append(runStart).append(',').append(y)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+
+        return svg.append("\"/></svg>").toString();
+    }
+
+    private static int writeChunk(byte[] png, int offset, byte[] type, byte[] data, int length, CRC32 crc) {
+        writeInt(png, offset, length);
+        System.arraycopy(type, 0, png, offset + 4, 4);
+        System.arraycopy(data, 0, png, offset + 8, length);
+
+        crc.reset();
+        crc.update(png, offset + 4, 4 + length);
+        writeInt(png, offset + 8 + length, (int) crc.getValue());
+        return offset + 12 + length;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static final class PngBuffers {
+
+        private final CRC32 crc = new CRC32();
+        private byte[] raw = new byte[0];
+        private byte[] deflated = new byte[0];
+        private int deflatedLength;
+
+        private byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        private byte[] deflate(byte[] input, int length) {
+            // Upper bound for zlib output, so a single pass always fits
+            int bound = length + (length >> 12) + (length >> 14) + (length >> 25) + 13 + 6;
+            if (deflated.length < bound) {
+                deflated = new byte[bound];
+            }
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(input, 0, length);
+                deflater.finish();
+                deflatedLength = 0;
+                while (!deflater.finished()) {
+                    deflatedLength += deflater.deflate(deflated, deflatedLength, deflated.length - deflatedLength);
+                }
+            } finally {
+                deflater.end();
+            }
+            return deflated;
+        }
+    }
+}
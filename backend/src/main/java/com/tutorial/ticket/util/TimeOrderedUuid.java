@@ -0,0 +1,19 @@
+package com.tutorial.ticket.util;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates entity IDs with {@link UuidV7}. Put it on the {@code @Id} field in
+ * place of {@code @GeneratedValue}; swapping the generator for every entity
+ * only means changing the class named here.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedUuid {
+}
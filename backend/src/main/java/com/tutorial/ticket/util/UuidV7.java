@@ -0,0 +1,35 @@
+package com.tutorial.ticket.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (version 7, RFC 9562): a 48-bit millisecond timestamp,
+ * a 12-bit counter and 62 random bits. IDs created later sort after earlier
+ * ones, so new rows are appended to the right edge of the primary key index
+ * instead of landing on random pages the way v4 UUIDs do.
+ *
+ * <p>The counter keeps IDs strictly increasing within one JVM, even for many
+ * IDs in the same millisecond.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Timestamp and counter packed as (millis << 12 | counter)
+    private static final AtomicLong LAST_STATE = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long now = System.currentTimeMillis() << 12;
+        // A full counter carries into the timestamp, which just runs a millisecond ahead
+        long state = LAST_STATE.updateAndGet(last -> Math.max(last + 1, now));
+
+        long mostSigBits = (state >>> 12) << 16 | 0x7000L | (state & 0xFFFL);
+        long leastSigBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
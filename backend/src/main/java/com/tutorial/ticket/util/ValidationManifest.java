@@ -0,0 +1,178 @@
+package com.tutorial.ticket.util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Door-side lookup table for one event: QR code IDs map to a compact ticket
+ * index through an open-addressing hash over two parallel long arrays, and a
+ * bitset records which tickets have been let in. Lookups allocate nothing and
+ * marking a ticket is a single CAS, so the first of two concurrent scans wins.
+ * A second table over ticket IDs lets state from elsewhere (a state file, the
+ * database) be applied by ticket. A second bitset marks tickets revoked after
+ * loading (cancelled, or their QR code expired); those are never let in.
+ *
+ * <p>The table is filled by one thread with {@link #add} and must then be
+ * published safely (e.g. through a concurrent map) before it is scanned.
+ */
+public final class ValidationManifest {
+
+    private final long[] qrCodeMostSigBits;
+    private final long[] qrCodeLeastSigBits;
+    private final int[] qrCodeSlots;
+
+    private final long[] ticketMostSigBits;
+    private final long[] ticketLeastSigBits;
+    private final int[] ticketSlots;
+
+    private final int mask;
+    private final AtomicLongArray validated;
+    private final AtomicLongArray revoked;
+    // Written only by the scan that set the ticket's bit
+    private final long[] validatedAt;
+    private int ticketCount;
+
+    public ValidationManifest(int qrCodeCapacity) {
+        int capacity = Math.max(1, qrCodeCapacity);
+        // Keep the load factor at or below one half so probe chains stay short
+        int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.qrCodeMostSigBits = new long[slots];
+        this.qrCodeLeastSigBits = new long[slots];
+        this.qrCodeSlots = new int[slots];
+        this.ticketSlots = new int[slots];
+        this.mask = slots - 1;
+
+        this.ticketMostSigBits = new long[capacity];
+        this.ticketLeastSigBits = new long[capacity];
+        this.validated = new AtomicLongArray((capacity + 63) >>> 6);
+        this.revoked = new AtomicLongArray((capacity + 63) >>> 6);
+        this.validatedAt = new long[capacity];
+    }
+
+    /**
+     * @param validatedAtMillis when the ticket was first let in, or 0 if it has not been
+     */
+    public void add(UUID qrCodeId, UUID ticketId, long validatedAtMillis) {
+        long ticketMostSig = ticketId.getMostSignificantBits();
+        long ticketLeastSig = ticketId.getLeastSignificantBits();
+        int ticketIndex = findTicketIndex(ticketMostSig, ticketLeastSig);
+        if (ticketIndex < 0) {
+            if (ticketCount == ticketMostSigBits.length) {
+                throw new IllegalStateException("Validation manifest is full");
+            }
+            ticketIndex = ticketCount++;
+            ticketMostSigBits[ticketIndex] = ticketMostSig;
+            ticketLeastSigBits[ticketIndex] = ticketLeastSig;
+
+            int slot = slotFor(ticketMostSig, ticketLeastSig);
+            while (ticketSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            ticketSlots[slot] = ticketIndex + 1;
+        }
+        if (validatedAtMillis != 0) {
+            markValidated(ticketIndex, validatedAtMillis);
+        }
+
+        long mostSigBits = qrCodeId.getMostSignificantBits();
+        long leastSigBits = qrCodeId.getLeastSignificantBits();
+        int slot = slotFor(mostSigBits, leastSigBits);
+        while (qrCodeSlots[slot] != 0) {
+            if (qrCodeMostSigBits[slot] == mostSigBits && qrCodeLeastSigBits[slot] == leastSigBits) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        qrCodeMostSigBits[slot] = mostSigBits;
+        qrCodeLeastSigBits[slot] = leastSigBits;
+        // Stored off by one so that 0 can mark an empty slot
+        qrCodeSlots[slot] = ticketIndex + 1;
+    }
+
+    /**
+     * @return the ticket index for the QR code, or -1 if it is not in the manifest
+     */
+    public int findTicket(long qrCodeMostSigBits, long qrCodeLeastSigBits) {
+        int slot = slotFor(qrCodeMostSigBits, qrCodeLeastSigBits);
+        int ticketIndex;
+        while ((ticketIndex = qrCodeSlots[slot]) != 0) {
+            if (this.qrCodeMostSigBits[slot] == qrCodeMostSigBits
+                    && this.qrCodeLeastSigBits[slot] == qrCodeLeastSigBits) {
+                return ticketIndex - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the ticket, or -1 if it is not in the manifest
+     */
+    public int findTicketIndex(long ticketMostSig, long ticketLeastSig) {
+        int slot = slotFor(ticketMostSig, ticketLeastSig);
+        int ticketIndex;
+        while ((ticketIndex = ticketSlots[slot]) != 0) {
+            if (ticketMostSigBits[ticketIndex - 1] == ticketMostSig
+                    && ticketLeastSigBits[ticketIndex - 1] == ticketLeastSig) {
+                return ticketIndex - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if this call let the ticket in, false if it had been already
+     */
+    public boolean markValidated(int ticketIndex, long epochMillis) {
+        int word = ticketIndex >>> 6;
+        long bit = 1L << (ticketIndex & 63);
+        while (true) {
+            long current = validated.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (validated.compareAndSet(word, current, current | bit)) {
+                validatedAt[ticketIndex] = epochMillis;
+                return true;
+            }
+        }
+    }
+
+    public void revoke(int ticketIndex) {
+        revoked.getAndAccumulate(ticketIndex >>> 6, 1L << (ticketIndex & 63), (current, bit) -> current | bit);
+    }
+
+    public boolean isRevoked(int ticketIndex) {
+        return (revoked.get(ticketIndex >>> 6) & (1L << (ticketIndex & 63))) != 0;
+    }
+
+    /**
+     * @return when the ticket was first let in, or 0 if it has not been
+     */
+    public long getValidatedAt(int ticketIndex) {
+        return validatedAt[ticketIndex];
+    }
+
+    public UUID getTicketId(int ticketIndex) {
+        return new UUID(ticketMostSigBits[ticketIndex], ticketLeastSigBits[ticketIndex]);
+    }
+
+    public long getTicketMostSigBits(int ticketIndex) {
+        return ticketMostSigBits[ticketIndex];
+    }
+
+    public long getTicketLeastSigBits(int ticketIndex) {
+        return ticketLeastSigBits[ticketIndex];
+    }
+
+    public int getTicketCount() {
+        return ticketCount;
+    }
+
+    private int slotFor(long mostSigBits, long leastSigBits) {
+        long hash = (mostSigBits ^ leastSigBits) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
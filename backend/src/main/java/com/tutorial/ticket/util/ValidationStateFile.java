@@ -0,0 +1,119 @@
+package com.tutorial.ticket.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Memory-mapped copy of a {@link ValidationManifest}'s scan state: one
+ * fixed-size slot per ticket index holding the ticket ID and when it was let
+ * in (0 if not yet). Marking a ticket is a single 8-byte store into the page
+ * cache, so the state survives a process crash without an fsync per scan and a
+ * restarted node can pick up exactly where it stopped.
+ *
+ * <p>Ticket indexes change whenever a manifest is rebuilt, so the file is
+ * always read back by ticket ID and rewritten for the new manifest.
+ */
+public final class ValidationStateFile implements Closeable {
+
+    private static final int MAGIC = 0x54565331; // "TVS1"
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 24;
+
+    private final MappedByteBuffer buffer;
+
+    private ValidationStateFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return validation times in epoch millis by ticket ID, empty if the file
+     * does not exist or is not a state file
+     */
+    public static Map<UUID, Long> readValidated(Path path) {
+        if (!Files.exists(path)) {
+            return Map.of();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return Map.of();
+            }
+            MappedByteBuffer state = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int ticketCount = state.getInt(4);
+            if (state.getInt(0) != MAGIC || HEADER_SIZE + (long) ticketCount * SLOT_SIZE > size) {
+                return Map.of();
+            }
+
+            Map<UUID, Long> validated = new HashMap<>();
+            for (int i = 0; i < ticketCount; i++) {
+                int offset = HEADER_SIZE + i * SLOT_SIZE;
+                long validatedAt = state.getLong(offset + 16);
+                if (validatedAt != 0) {
+                    validated.put(new UUID(state.getLong(offset), state.getLong(offset + 8)), validatedAt);
+                }
+            }
+            return validated;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read validation state " + path, ex);
+        }
+    }
+
+    /**
+     * Writes the manifest's current state to a new file, replaces {@code path}
+     * with it atomically and keeps it mapped for {@link #markValidated}.
+     */
+    public static ValidationStateFile create(Path path, ValidationManifest manifest) {
+        int ticketCount = manifest.getTicketCount();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+            MappedByteBuffer state;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                state = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) ticketCount * SLOT_SIZE);
+            }
+
+            state.putInt(0, MAGIC);
+            state.putInt(4, ticketCount);
+            for (int i = 0; i < ticketCount; i++) {
+                int offset = HEADER_SIZE + i * SLOT_SIZE;
+                state.putLong(offset, manifest.getTicketMostSigBits(i));
+                state.putLong(offset + 8, manifest.getTicketLeastSigBits(i));
+                state.putLong(offset + 16, manifest.getValidatedAt(i));
+            }
+            state.force();
+
+            // The mapping follows the file through the rename
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new ValidationStateFile(state);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write validation state " + path, ex);
+        }
+    }
+
+    public void markValidated(int ticketIndex, long epochMillis) {
+        buffer.putLong(HEADER_SIZE + ticketIndex * SLOT_SIZE + 16, epochMillis);
+    }
+
+    // Only needed to survive a machine crash; a process crash keeps the page cache
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+}
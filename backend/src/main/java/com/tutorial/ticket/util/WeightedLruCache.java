@@ -0,0 +1,76 @@
+package com.tutorial.ticket.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRU cache bounded by the total weight of its values (e.g. bytes) rather than
+ * by entry count, so a few large values cannot push the heap past its budget.
+ * All operations take the cache's lock; keep values cheap to weigh.
+ */
+public final class WeightedLruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalWeight;
+
+    public WeightedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must not be negative");
+        }
+
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            return;
+        }
+
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            totalWeight -= weigher.applyAsLong(previous);
+        }
+        totalWeight += weight;
+
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            totalWeight -= weigher.applyAsLong(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        V previous = entries.remove(key);
+        if (previous != null) {
+            totalWeight -= weigher.applyAsLong(previous);
+        }
+    }
+
+    // Removes the entry only if it still holds this very value
+    public synchronized void invalidate(K key, V value) {
+        if (entries.get(key) == value && value != null) {
+            entries.remove(key);
+            totalWeight -= weigher.applyAsLong(value);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+}
@@ -0,0 +1,17 @@
+-- Reverts V1__drop_stored_qr_code_images.sql: restores the image columns and
+-- their contents from qr_code_images_backup. Rows that were PENDING stay ACTIVE.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE qr_codes
+    ADD COLUMN IF NOT EXISTS value TEXT,
+    ADD COLUMN IF NOT EXISTS image BYTEA;
+
+UPDATE qr_codes q
+SET value = b.value, image = b.image
+FROM qr_code_images_backup b
+WHERE q.id = b.id;
+
+COMMIT;
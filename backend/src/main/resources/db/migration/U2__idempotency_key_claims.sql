@@ -0,0 +1,16 @@
+-- Reverts V2__idempotency_key_claims.sql. Keys without a ticket cannot be
+-- represented in the old schema and are dropped.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+DELETE FROM idempotency_keys
+WHERE ticket_id IS NULL;
+
+ALTER TABLE idempotency_keys
+    ALTER COLUMN ticket_id SET NOT NULL,
+    DROP COLUMN IF EXISTS ticket_type_id,
+    DROP COLUMN IF EXISTS quantity;
+
+COMMIT;
@@ -0,0 +1,11 @@
+-- Reverts V3__backfill_ticket_type_sold.sql for versions that count sold
+-- tickets on every purchase instead of keeping a sold column.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE ticket_types
+    DROP COLUMN IF EXISTS sold;
+
+COMMIT;
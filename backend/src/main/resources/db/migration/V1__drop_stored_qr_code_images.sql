@@ -0,0 +1,29 @@
+-- QR images are rendered on demand from the QR code ID, so the stored
+-- Base64 text (value) and binary (image) columns are no longer read.
+-- Run this before deploying a version without the PENDING QR code status,
+-- which can no longer load rows in that state.
+--
+-- The images are copied to qr_code_images_backup first, so
+-- U1__drop_stored_qr_code_images.sql can put them back.
+
+BEGIN;
+
+-- Dropping a column needs a brief ACCESS EXCLUSIVE lock on qr_codes; give up
+-- rather than queue behind long transactions and block purchases
+SET LOCAL lock_timeout = '5s';
+
+CREATE TABLE IF NOT EXISTS qr_code_images_backup AS
+SELECT id, value, image
+FROM qr_codes
+WHERE value IS NOT NULL OR image IS NOT NULL;
+
+-- Rows still waiting for the old background renderer only need their ID
+UPDATE qr_codes
+SET status = 'ACTIVE', updated_at = now()
+WHERE status = 'PENDING';
+
+ALTER TABLE qr_codes
+    DROP COLUMN IF EXISTS value,
+    DROP COLUMN IF EXISTS image;
+
+COMMIT;
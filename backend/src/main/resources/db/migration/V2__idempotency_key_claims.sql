@@ -0,0 +1,28 @@
+-- Idempotency keys are now claimed inside the purchase transaction, before a
+-- ticket exists, and remember which purchase they were used for so a key
+-- reused with different parameters can be rejected.
+-- Run this before deploying the version that claims keys this way.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE idempotency_keys
+    ALTER COLUMN ticket_id DROP NOT NULL,
+    ADD COLUMN IF NOT EXISTS ticket_type_id UUID,
+    ADD COLUMN IF NOT EXISTS quantity INTEGER;
+
+UPDATE idempotency_keys k
+SET ticket_type_id = t.ticket_type_id, quantity = 1
+FROM ticket t
+WHERE t.id = k.ticket_id AND k.ticket_type_id IS NULL;
+
+-- A key whose ticket no longer exists cannot be checked against a retry
+DELETE FROM idempotency_keys
+WHERE ticket_type_id IS NULL;
+
+ALTER TABLE idempotency_keys
+    ALTER COLUMN ticket_type_id SET NOT NULL,
+    ALTER COLUMN quantity SET NOT NULL;
+
+COMMIT;
@@ -0,0 +1,17 @@
+-- ticket_types.sold counts the tickets sold, so a purchase can claim stock
+-- with one conditional UPDATE. Ticket types created before the column existed
+-- start at 0; this fills them in from their tickets once.
+-- Run this after deploying the version that tracks sold counts and before
+-- reopening sales: a purchase committing while it runs may be missed.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+ALTER TABLE ticket_types
+    ADD COLUMN IF NOT EXISTS sold INTEGER NOT NULL DEFAULT 0;
+
+UPDATE ticket_types tt
+SET sold = (SELECT COUNT(*) FROM ticket t WHERE t.ticket_type_id = tt.id);
+
+COMMIT;
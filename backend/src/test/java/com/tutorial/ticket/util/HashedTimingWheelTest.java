@@ -0,0 +1,58 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void expiresOnTheTickOfTheDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        wheel.schedule("hold", 25);
+
+        assertTrue(wheel.advance(19).isEmpty());
+        assertEquals(List.of("hold"), wheel.advance(29));
+        assertTrue(wheel.advance(1000).isEmpty());
+    }
+
+    @Test
+    void deadlinesBeyondOneRotationWaitForTheirRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        // Tick 16 shares a bucket with ticks 0 and 8
+        wheel.schedule("hold", 165);
+
+        assertTrue(wheel.advance(159).isEmpty());
+        assertEquals(List.of("hold"), wheel.advance(165));
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpire() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        wheel.schedule("cancelled", 5).cancel();
+        HashedTimingWheel.Timeout<String> kept = wheel.schedule("kept", 5);
+
+        assertEquals(List.of(kept.getKey()), wheel.advance(100));
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+        wheel.advance(55);
+
+        wheel.schedule("late", 10);
+
+        assertTrue(wheel.advance(55).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(60));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(10, 6, 0));
+    }
+}
@@ -0,0 +1,124 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedRecordLogTest {
+
+    private static final int RECORD_SIZE = 8;
+    private static final int RECORDS_PER_SEGMENT = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedRecordsAcrossSegments() {
+        try (MappedRecordLog log = open()) {
+            for (long value = 0; value < 6; value++) {
+                assertEquals(value, log.append(record(value)));
+            }
+
+            List<Long> values = new ArrayList<>();
+            assertEquals(5, log.read(0, 5, record -> values.add(record.getLong())));
+            assertEquals(6, log.read(5, 10, record -> values.add(record.getLong())));
+
+            assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), values);
+            assertEquals(6, log.getAppendPosition());
+        }
+    }
+
+    @Test
+    void recoversTheAppendAndCommittedPositionsOnReopen() {
+        try (MappedRecordLog log = open()) {
+            for (long value = 0; value < 6; value++) {
+                log.append(record(value));
+            }
+            log.commit(2);
+        }
+
+        try (MappedRecordLog log = open()) {
+            assertEquals(2, log.getCommittedPosition());
+            assertEquals(6, log.getAppendPosition());
+            assertEquals(List.of(2L, 3L, 4L, 5L), readAll(log));
+        }
+    }
+
+    @Test
+    void deletesSegmentsBehindTheCommittedPosition() {
+        try (MappedRecordLog log = open()) {
+            for (long value = 0; value < 10; value++) {
+                log.append(record(value));
+            }
+
+            log.commit(5);
+            assertFalse(Files.exists(segment(0)));
+            assertTrue(Files.exists(segment(1)));
+
+            log.commit(8);
+            assertFalse(Files.exists(segment(1)));
+            assertTrue(Files.exists(segment(2)));
+        }
+    }
+
+    @Test
+    void dropsATornRecordAtTheTail() throws IOException {
+        try (MappedRecordLog log = open()) {
+            for (long value = 0; value < 3; value++) {
+                log.append(record(value));
+            }
+        }
+
+        // Flip the CRC of the last record as if the write had been cut short
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 0xDEADBEEF), 2L * (RECORD_SIZE + 4) + RECORD_SIZE);
+        }
+
+        try (MappedRecordLog log = open()) {
+            assertEquals(2, log.getAppendPosition());
+            assertEquals(List.of(0L, 1L), readAll(log));
+
+            assertEquals(2, log.append(record(7)));
+            assertEquals(List.of(0L, 1L, 7L), readAll(log));
+        }
+    }
+
+    @Test
+    void rejectsRecordsOfTheWrongSize() {
+        try (MappedRecordLog log = open()) {
+            assertThrows(IllegalArgumentException.class, () -> log.append(ByteBuffer.allocate(RECORD_SIZE + 1)));
+            assertEquals(0, log.getAppendPosition());
+        }
+    }
+
+    private MappedRecordLog open() {
+        return new MappedRecordLog(directory, RECORD_SIZE, RECORDS_PER_SEGMENT);
+    }
+
+    private Path segment(long sequence) {
+        return directory.resolve(String.format("%019d.log", sequence));
+    }
+
+    private static ByteBuffer record(long value) {
+        return ByteBuffer.allocate(RECORD_SIZE).putLong(0, value);
+    }
+
+    private static List<Long> readAll(MappedRecordLog log) {
+        List<Long> values = new ArrayList<>();
+        log.read(log.getCommittedPosition(), Integer.MAX_VALUE, record -> values.add(record.getLong()));
+        return values;
+    }
+}
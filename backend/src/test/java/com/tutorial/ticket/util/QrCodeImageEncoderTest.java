@@ -0,0 +1,94 @@
+package com.tutorial.ticket.util;
+
+import com.google.zxing.common.BitMatrix;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QrCodeImageEncoderTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @Test
+    void pngScalesAndCentresTheModules() throws IOException {
+        BitMatrix modules = checkerboard(21);
+
+        byte[] png = QrCodeImageEncoder.toPng(modules, 100);
+
+        assertArrayEquals(PNG_SIGNATURE, Arrays.copyOf(png, PNG_SIGNATURE.length));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(100, image.getWidth());
+        assertEquals(100, image.getHeight());
+
+        // 21 modules of 4 pixels leave a 16 pixel margin, split evenly
+        int scale = 4;
+        int offset = 8;
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 100; x++) {
+                int moduleX = x - offset;
+                int moduleY = y - offset;
+                boolean dark = moduleX >= 0 && moduleY >= 0 && moduleX < 21 * scale && moduleY < 21 * scale
+                        && modules.get(moduleX / scale, moduleY / scale);
+                assertEquals(dark ? BLACK : WHITE, image.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void pngIsNeverSmallerThanTheModules() throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(QrCodeImageEncoder.toPng(checkerboard(25), 10)));
+
+        assertEquals(25, image.getWidth());
+        assertEquals(25, image.getHeight());
+    }
+
+    @Test
+    void reusedBuffersDoNotLeakIntoTheNextImage() {
+        BitMatrix small = checkerboard(21);
+        BitMatrix large = new BitMatrix(41, 41);
+        large.setRegion(0, 0, 41, 41);
+
+        byte[] first = QrCodeImageEncoder.toPng(small, 84);
+        QrCodeImageEncoder.toPng(large, 400);
+        byte[] second = QrCodeImageEncoder.toPng(small, 84);
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void svgDrawsOneRectanglePerRunOfDarkModules() {
+        BitMatrix modules = new BitMatrix(3, 3);
+        modules.set(0, 0);
+        modules.set(1, 0);
+        modules.set(2, 1);
+
+        String svg = QrCodeImageEncoder.toSvg(modules, 120);
+
+        assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"120\" height=\"120\""));
+        assertTrue(svg.contains("viewBox=\"0 0 3 3\""));
+        assertTrue(svg.contains("d=\"M0,0h2v1h-2zM2,1h1v1h-1z\""));
+        assertTrue(svg.endsWith("</svg>"));
+    }
+
+    private static BitMatrix checkerboard(int size) {
+        BitMatrix modules = new BitMatrix(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if ((x + y) % 2 == 0) {
+                    modules.set(x, y);
+                }
+            }
+        }
+        return modules;
+    }
+}
@@ -0,0 +1,43 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Test {
+
+    @Test
+    void hasVersionSevenAndTheRfcVariant() {
+        UUID uuid = UuidV7.generate();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void startsWithTheCurrentUnixMillis() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.generate();
+        long after = System.currentTimeMillis();
+
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        // The counter may carry into the timestamp after a burst of IDs in other tests
+        assertTrue(timestamp >= before && timestamp <= after + 10, "timestamp " + timestamp);
+    }
+
+    @Test
+    void idsAreStrictlyIncreasingWithinOneMillisecond() {
+        UUID previous = UuidV7.generate();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = UuidV7.generate();
+
+            assertTrue(next.getMostSignificantBits() > previous.getMostSignificantBits());
+            // PostgreSQL compares UUIDs byte by byte, which is the order of their text form
+            assertTrue(next.toString().compareTo(previous.toString()) > 0);
+            previous = next;
+        }
+    }
+}
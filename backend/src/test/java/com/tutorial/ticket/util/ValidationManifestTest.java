@@ -0,0 +1,133 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidationManifestTest {
+
+    @Test
+    void findsTicketsByQrCodeAndByTicketId() {
+        UUID firstQrCode = UUID.randomUUID();
+        UUID secondQrCode = UUID.randomUUID();
+        UUID otherQrCode = UUID.randomUUID();
+        UUID ticket = UUID.randomUUID();
+        UUID otherTicket = UUID.randomUUID();
+
+        ValidationManifest manifest = new ValidationManifest(3);
+        manifest.add(firstQrCode, ticket, 0);
+        manifest.add(secondQrCode, ticket, 0);
+        manifest.add(otherQrCode, otherTicket, 0);
+
+        int ticketIndex = findTicket(manifest, firstQrCode);
+        assertEquals(2, manifest.getTicketCount());
+        assertEquals(ticketIndex, findTicket(manifest, secondQrCode));
+        assertNotEquals(ticketIndex, findTicket(manifest, otherQrCode));
+        assertEquals(ticket, manifest.getTicketId(ticketIndex));
+        assertEquals(ticketIndex, manifest.findTicketIndex(
+                ticket.getMostSignificantBits(), ticket.getLeastSignificantBits()
+        ));
+        assertEquals(-1, findTicket(manifest, UUID.randomUUID()));
+    }
+
+    @Test
+    void letsEachTicketInOnce() {
+        UUID qrCode = UUID.randomUUID();
+        ValidationManifest manifest = new ValidationManifest(1);
+        manifest.add(qrCode, UUID.randomUUID(), 0);
+        int ticketIndex = findTicket(manifest, qrCode);
+
+        assertEquals(0, manifest.getValidatedAt(ticketIndex));
+        assertTrue(manifest.markValidated(ticketIndex, 1000));
+        assertFalse(manifest.markValidated(ticketIndex, 2000));
+        assertEquals(1000, manifest.getValidatedAt(ticketIndex));
+    }
+
+    @Test
+    void loadsTicketsThatWereAlreadyLetIn() {
+        UUID qrCode = UUID.randomUUID();
+        ValidationManifest manifest = new ValidationManifest(1);
+        manifest.add(qrCode, UUID.randomUUID(), 1000);
+        int ticketIndex = findTicket(manifest, qrCode);
+
+        assertEquals(1000, manifest.getValidatedAt(ticketIndex));
+        assertFalse(manifest.markValidated(ticketIndex, 2000));
+    }
+
+    @Test
+    void revokingLeavesTheOtherTicketsAlone() {
+        ValidationManifest manifest = new ValidationManifest(70);
+        for (int i = 0; i < 70; i++) {
+            manifest.add(UUID.randomUUID(), UUID.randomUUID(), 0);
+        }
+
+        manifest.revoke(65);
+        manifest.revoke(65);
+
+        for (int i = 0; i < 70; i++) {
+            assertEquals(i == 65, manifest.isRevoked(i), "ticket " + i);
+        }
+        assertTrue(manifest.markValidated(65, 1000));
+    }
+
+    @Test
+    void rejectsMoreTicketsThanItWasSizedFor() {
+        ValidationManifest manifest = new ValidationManifest(1);
+        manifest.add(UUID.randomUUID(), UUID.randomUUID(), 0);
+
+        assertThrows(IllegalStateException.class,
+                () -> manifest.add(UUID.randomUUID(), UUID.randomUUID(), 0));
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentScansWins() throws Exception {
+        UUID qrCode = UUID.randomUUID();
+        ValidationManifest manifest = new ValidationManifest(1);
+        manifest.add(qrCode, UUID.randomUUID(), 0);
+        int ticketIndex = findTicket(manifest, qrCode);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger admitted = new AtomicInteger();
+            List<Future<?>> scans = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long scannedAt = 1000 + i;
+                scans.add(executor.submit(() -> {
+                    start.await();
+                    if (manifest.markValidated(ticketIndex, scannedAt)) {
+                        admitted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> scan : scans) {
+                scan.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(1, admitted.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int findTicket(ValidationManifest manifest, UUID qrCode) {
+        return manifest.findTicket(qrCode.getMostSignificantBits(), qrCode.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,68 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidationStateFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackTheManifestStateAndLaterScans() {
+        UUID enteredBeforeLoad = UUID.randomUUID();
+        UUID enteredAfterLoad = UUID.randomUUID();
+        UUID notEntered = UUID.randomUUID();
+        ValidationManifest manifest = new ValidationManifest(3);
+        manifest.add(UUID.randomUUID(), enteredBeforeLoad, 1000);
+        manifest.add(UUID.randomUUID(), enteredAfterLoad, 0);
+        manifest.add(UUID.randomUUID(), notEntered, 0);
+        Path path = directory.resolve("event.state");
+
+        ValidationStateFile stateFile = ValidationStateFile.create(path, manifest);
+        stateFile.markValidated(manifest.findTicketIndex(
+                enteredAfterLoad.getMostSignificantBits(), enteredAfterLoad.getLeastSignificantBits()
+        ), 2000);
+        stateFile.close();
+
+        assertEquals(Map.of(enteredBeforeLoad, 1000L, enteredAfterLoad, 2000L), ValidationStateFile.readValidated(path));
+    }
+
+    @Test
+    void rewritingReplacesTheFileWithoutLeavingATemporaryOne() {
+        UUID ticket = UUID.randomUUID();
+        ValidationManifest manifest = new ValidationManifest(1);
+        manifest.add(UUID.randomUUID(), ticket, 0);
+        Path path = directory.resolve("event.state");
+
+        ValidationStateFile.create(path, manifest).close();
+        manifest.markValidated(0, 3000);
+        ValidationStateFile.create(path, manifest).close();
+
+        assertEquals(Map.of(ticket, 3000L), ValidationStateFile.readValidated(path));
+        assertFalse(Files.exists(directory.resolve("event.state.tmp")));
+    }
+
+    @Test
+    void ignoresMissingAndForeignFiles() throws IOException {
+        assertTrue(ValidationStateFile.readValidated(directory.resolve("missing.state")).isEmpty());
+
+        Path foreign = directory.resolve("foreign.state");
+        Files.write(foreign, new byte[64]);
+        assertTrue(ValidationStateFile.readValidated(foreign).isEmpty());
+
+        Path truncated = directory.resolve("truncated.state");
+        Files.write(truncated, new byte[8]);
+        assertTrue(ValidationStateFile.readValidated(truncated).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.tutorial.ticket.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeightedLruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntriesUntilTheWeightFits() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbb");
+        cache.put("c", "ccc");
+        cache.get("a");
+
+        cache.put("d", "dddd");
+
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("dddd", cache.get("d"));
+        assertEquals(8, cache.weight());
+    }
+
+    @Test
+    void skipsValuesHeavierThanTheWholeCache() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(4, String::length);
+        cache.put("a", "aaa");
+
+        cache.put("b", "bbbbb");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaa", cache.get("a"));
+        assertEquals(3, cache.weight());
+    }
+
+    @Test
+    void replacingAValueAdjustsTheWeight() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+
+        cache.put("a", "aa");
+
+        assertEquals("aa", cache.get("a"));
+        assertEquals(2, cache.weight());
+    }
+
+    @Test
+    void invalidatingRemovesTheEntryAndItsWeight() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bb");
+
+        cache.invalidate("a");
+        cache.invalidate("missing");
+
+        assertNull(cache.get("a"));
+        assertEquals("bb", cache.get("b"));
+        assertEquals(2, cache.weight());
+    }
+
+    @Test
+    void conditionalInvalidateLeavesAReplacedValue() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, String::length);
+        String first = new String("aaaa");
+        String second = new String("aaaa");
+        cache.put("a", first);
+        cache.put("a", second);
+
+        cache.invalidate("a", first);
+        assertEquals("aaaa", cache.get("a"));
+
+        cache.invalidate("a", second);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void clearingDropsEverything() {
+        WeightedLruCache<String, String> cache = new WeightedLruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bb");
+
+        cache.clear();
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void rejectsANegativeMaxWeight() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedLruCache<String, String>(-1, String::length));
+    }
+}